@@ -0,0 +1,135 @@
+package com.example.demo.cache;
+
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Сравнение реализаций {@link TaggedCache} на смешанной нагрузке: чтения с загрузчиком,
+ * записи и инвалидации по тегам в пропорции 6:1:1 потоков, ключи с перекосом к горячим.
+ * Сборка: {@code mvn -Pjmh test-compile}; запуск: {@code java -cp target/classes:target/test-classes:
+ * $(mvn -q -Pjmh dependency:build-classpath -Dmdep.outputFile=/dev/stdout)
+ * com.example.demo.cache.TaggedCacheBenchmark}.
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TaggedCacheBenchmark {
+    private static final int MAX_SIZE = 1000;
+    private static final int KEY_SPACE = 4000;
+    // Каждый тег покрывает четыре ключа, как игрок, попавший в несколько выборок
+    private static final int TAGS = KEY_SPACE / 4;
+    private static final int TRACE_LENGTH = 1 << 16;
+
+    private static final Set<String>[] TAG_SETS = tagSets();
+
+    @Param({"MYCACHE", "CAFFEINE"})
+    public CacheBackend backend;
+
+    private TaggedCache<Integer, Integer> cache;
+
+    @State(Scope.Thread)
+    public static class Keys {
+        private final int[] keys = new int[TRACE_LENGTH];
+        private int index;
+
+        @Setup
+        public void setUp() {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            for (int i = 0; i < keys.length; i++) {
+                keys[i] = (int) (Math.abs(random.nextGaussian()) * KEY_SPACE / 4) % KEY_SPACE;
+            }
+        }
+
+        int next() {
+            return keys[index++ & (TRACE_LENGTH - 1)];
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        CacheSettings<Integer, Integer> settings = CacheSettings
+                .<Integer, Integer>of(MAX_SIZE, 600_000)
+                .withAdmissionFilter(MAX_SIZE);
+        cache = switch (backend) {
+            case MYCACHE -> {
+                MyCache<Integer, Integer> myCache = new MyCache<>("benchmark",
+                        settings.maxWeight(), settings.timeout(), settings.weigher(), null);
+                myCache.enableAdmissionFilter(settings.expectedEntries());
+                yield myCache;
+            }
+            case CAFFEINE -> new CaffeineTaggedCache<>("benchmark", settings, null);
+        };
+        for (int key = 0; key < MAX_SIZE; key++) {
+            cache.put(key, key, tagsOf(key));
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        cache.close();
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(6)
+    public Integer read(Keys keys) {
+        int key = keys.next();
+        return cache.get(key, () -> key, value -> tagsOf(key));
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(1)
+    public void write(Keys keys) {
+        int key = keys.next();
+        cache.put(key, key, tagsOf(key));
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(1)
+    public void invalidate(Keys keys) {
+        cache.invalidateTags(tagsOf(keys.next()));
+    }
+
+    private static Set<String> tagsOf(int key) {
+        return TAG_SETS[key % TAGS];
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Set<String>[] tagSets() {
+        Set<String>[] sets = new Set[TAGS];
+        for (int i = 0; i < TAGS; i++) {
+            sets[i] = Set.of(CacheTags.player((long) i));
+        }
+        return sets;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(TaggedCacheBenchmark.class.getSimpleName())
+                .build())
+                .run();
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.demo.cache;
+
+/**
+ * TTL записи по наблюдаемым частотам ключа. Частые чтения продлевают базовый TTL,
+ * частые инвалидации сокращают его; результат ограничен {@code [minMillis, maxMillis]}.
+ * Частоты считаются двумя Count-Min sketch, счётчики которых периодически делятся пополам,
+ * поэтому TTL следует за изменением нагрузки, а не копит историю бесконечно.
+ */
+final class AdaptiveTtl {
+    // Столько чтений (в единицах sketch) добавляют к TTL ещё один базовый
+    private static final int READ_SCALE = 4;
+
+    private final FrequencySketch reads;
+    private final FrequencySketch invalidations;
+    private final long baseMillis;
+    private final long minMillis;
+    private final long maxMillis;
+
+    AdaptiveTtl(long baseMillis, long minMillis, long maxMillis, int expectedEntries) {
+        if (minMillis <= 0 || minMillis > baseMillis || maxMillis < baseMillis) {
+            throw new IllegalArgumentException(
+                    "Adaptive TTL bounds must satisfy 0 < min <= timeout <= max");
+        }
+        this.reads = new FrequencySketch(expectedEntries);
+        this.invalidations = new FrequencySketch(expectedEntries);
+        this.baseMillis = baseMillis;
+        this.minMillis = minMillis;
+        this.maxMillis = maxMillis;
+    }
+
+    void recordRead(Object key) {
+        reads.increment(key);
+    }
+
+    void recordInvalidation(Object key) {
+        invalidations.increment(key);
+    }
+
+    // Холодный ключ без инвалидаций получает базовый TTL; каждая инвалидация в окне
+    // sketch делит его, а каждые READ_SCALE чтений добавляют ещё один базовый
+    long timeoutFor(Object key) {
+        long scaled = baseMillis * (READ_SCALE + reads.frequency(key))
+                / (READ_SCALE * (1L + invalidations.frequency(key)));
+        return Math.clamp(scaled, minMillis, maxMillis);
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.demo.cache;
+
+import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Неблокирующая обёртка над {@link TaggedCache}: попадание возвращает готовый future
+ * (и в окне refresh-ahead запускает фоновую перезагрузку), а промах запускает загрузчик
+ * в executor и отдаёт его future всем, кто ждёт тот же ключ.
+ * Готовые значения хранятся в синхронном кеше, поэтому теги, вес, статистика
+ * и stale-if-error работают так же, как у него.
+ */
+public final class AsyncTaggedCache<K, V> {
+    private final TaggedCache<K, V> cache;
+    private final Executor executor;
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    public AsyncTaggedCache(TaggedCache<K, V> cache, Executor executor) {
+        this.cache = cache;
+        this.executor = executor;
+    }
+
+    public CompletableFuture<V> get(K key, Supplier<V> valueLoader) {
+        return get(key, valueLoader, value -> Set.of());
+    }
+
+    public CompletableFuture<V> get(K key, Supplier<V> valueLoader,
+                                    Function<? super V, ? extends Collection<String>> tagger) {
+        // Попадание в окне refresh-ahead запускает фоновую перезагрузку, а устаревшая запись
+        // считается промахом: загрузка в executor отдаст её сама, если загрузчик упадёт
+        V value = cache.getIfFresh(key, valueLoader, tagger);
+        if (value != null) {
+            return CompletableFuture.completedFuture(value);
+        }
+
+        CompletableFuture<V> load = new CompletableFuture<>();
+        CompletableFuture<V> running = inFlight.putIfAbsent(key, load);
+        if (running != null) {
+            // Копия не даёт одному вызывающему отменить загрузку для остальных
+            return running.copy();
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    load.complete(cache.get(key, valueLoader, tagger));
+                } catch (Throwable e) {
+                    load.completeExceptionally(e);
+                } finally {
+                    inFlight.remove(key, load);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(key, load);
+            load.completeExceptionally(e);
+        }
+        return load.copy();
+    }
+
+    public TaggedCache<K, V> synchronous() {
+        return cache;
+    }
+}
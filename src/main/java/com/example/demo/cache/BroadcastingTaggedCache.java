@@ -0,0 +1,128 @@
+package com.example.demo.cache;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Обёртка, которая сообщает об инвалидациях кеша другим узлам. Записи (put) не рассылаются:
+ * сквозная запись начинается с remove, и остальные узлы перечитают ключ из БД.
+ * Произвольный предикат invalidateIf передать нельзя, поэтому на других узлах он становится
+ * очисткой кеша; диапазон ключей передаётся границей через invalidateKeysUpTo.
+ */
+final class BroadcastingTaggedCache<K, V> implements TaggedCache<K, V> {
+    private final TaggedCache<K, V> delegate;
+    private final InvalidationBroadcaster broadcaster;
+
+    BroadcastingTaggedCache(TaggedCache<K, V> delegate, InvalidationBroadcaster broadcaster) {
+        this.delegate = delegate;
+        this.broadcaster = broadcaster;
+    }
+
+    @Override
+    public V get(K key) {
+        return delegate.get(key);
+    }
+
+    @Override
+    public V get(K key, Supplier<V> valueLoader) {
+        return delegate.get(key, valueLoader);
+    }
+
+    @Override
+    public V get(K key, Supplier<V> valueLoader,
+                 Function<? super V, ? extends Collection<String>> tagger) {
+        return delegate.get(key, valueLoader, tagger);
+    }
+
+    @Override
+    public V getIfFresh(K key, Supplier<V> valueLoader,
+                        Function<? super V, ? extends Collection<String>> tagger) {
+        return delegate.getIfFresh(key, valueLoader, tagger);
+    }
+
+    @Override
+    public Map<K, V> getAll(Collection<? extends K> keys, Function<Set<K>, Map<K, V>> batchLoader,
+                            Function<? super V, ? extends Collection<String>> tagger) {
+        return delegate.getAll(keys, batchLoader, tagger);
+    }
+
+    @Override
+    public void put(K key, V value) {
+        delegate.put(key, value);
+    }
+
+    @Override
+    public void put(K key, V value, Collection<String> tags) {
+        delegate.put(key, value, tags);
+    }
+
+    @Override
+    public void remove(K key) {
+        delegate.remove(key);
+        broadcaster.keyRemoved(getCacheName(), key);
+    }
+
+    @Override
+    public void invalidateTag(String tag) {
+        invalidateTags(Set.of(tag));
+    }
+
+    @Override
+    public void invalidateTags(Collection<String> tags) {
+        delegate.invalidateTags(tags);
+        broadcaster.tagsInvalidated(getCacheName(), tags);
+    }
+
+    @Override
+    public void invalidateIf(Predicate<? super K> keyFilter) {
+        delegate.invalidateIf(keyFilter);
+        broadcaster.cleared(getCacheName());
+    }
+
+    @Override
+    public void invalidateKeysUpTo(double bound) {
+        delegate.invalidateKeysUpTo(bound);
+        broadcaster.keysInvalidatedUpTo(getCacheName(), bound);
+    }
+
+    @Override
+    public void clear() {
+        delegate.clear();
+        broadcaster.cleared(getCacheName());
+    }
+
+    @Override
+    public int size() {
+        return delegate.size();
+    }
+
+    @Override
+    public long weightedSize() {
+        return delegate.weightedSize();
+    }
+
+    @Override
+    public void addRemovalListener(RemovalListener<K, V> listener) {
+        delegate.addRemovalListener(listener);
+    }
+
+    @Override
+    public String getCacheName() {
+        return delegate.getCacheName();
+    }
+
+    @Override
+    public CacheStatsSnapshot getStats() {
+        return delegate.getStats();
+    }
+
+    // Закрытие узла — локальное событие, остальным узлам о нём знать незачем
+    @Override
+    public void close() {
+        delegate.close();
+    }
+}
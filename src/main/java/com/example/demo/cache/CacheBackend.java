@@ -0,0 +1,6 @@
+package com.example.demo.cache;
+
+public enum CacheBackend {
+    MYCACHE,
+    CAFFEINE
+}
@@ -0,0 +1,87 @@
+package com.example.demo.cache;
+
+import jakarta.annotation.PreDestroy;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+/**
+ * Общий для всех кешей поток истечения TTL. Записи регистрируются через lock-free очередь,
+ * а сам поток раз в тик переносит их в {@link HierarchicalTimingWheel} и удаляет
+ * просроченные — без обхода карт кешей.
+ */
+@Slf4j
+@Component
+public class CacheExpiryService {
+    private static final long DEFAULT_TICK_MS = 1000;
+
+    private final long tickMs;
+    private final HierarchicalTimingWheel wheel;
+    private final ConcurrentLinkedQueue<ExpiryTimer> pending = new ConcurrentLinkedQueue<>();
+    private final LongAdder scheduled = new LongAdder();
+    private final LongAdder expired = new LongAdder();
+    private final Thread ticker;
+    private volatile boolean running = true;
+
+    public CacheExpiryService() {
+        this(DEFAULT_TICK_MS);
+    }
+
+    CacheExpiryService(long tickMs) {
+        this.tickMs = tickMs;
+        this.wheel = new HierarchicalTimingWheel(tickMs, System.currentTimeMillis());
+        this.ticker = new Thread(this::run, "cache-expiry");
+        this.ticker.setDaemon(true);
+        this.ticker.start();
+    }
+
+    void schedule(ExpiryTimer timer) {
+        scheduled.increment();
+        pending.offer(timer);
+    }
+
+    private void run() {
+        while (running) {
+            long now = System.currentTimeMillis();
+            ExpiryTimer timer;
+            while ((timer = pending.poll()) != null) {
+                wheel.add(timer);
+            }
+            wheel.advance(now, this::fire);
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(tickMs - now % tickMs));
+        }
+    }
+
+    private void fire(ExpiryTimer timer) {
+        try {
+            if (timer.expire()) {
+                expired.increment();
+            }
+        } catch (RuntimeException e) {
+            log.warn("Failed to expire cache entry", e);
+        }
+    }
+
+    public long getScheduledCount() {
+        return scheduled.sum();
+    }
+
+    public long getExpiredCount() {
+        return expired.sum();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        LockSupport.unpark(ticker);
+        try {
+            ticker.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        pending.clear();
+    }
+}
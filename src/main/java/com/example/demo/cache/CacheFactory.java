@@ -1,15 +1,199 @@
 package com.example.demo.cache;
 
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.Environment;
 import org.springframework.stereotype.Component;
 
+@Slf4j
 @Component
 @RequiredArgsConstructor
 public class CacheFactory {
+    // Минимальный размер sketch частот для адаптивного TTL, если фильтр допуска не задан
+    private static final int ADAPTIVE_TTL_ENTRIES = 1024;
+
     private final ConfigurableApplicationContext context;
+    private final CacheExpiryService expiryService;
+    private final Environment environment;
+    // Шина инвалидаций между узлами задаётся свойством cache.invalidation.bus
+    private final Optional<InvalidationBus> invalidationBus;
+    // Прототипы не получают destroy-колбэков, поэтому фабрика закрывает их сама
+    private final List<TaggedCache<?, ?>> caches = new CopyOnWriteArrayList<>();
+    // Отдельный пул, чтобы блокирующие запросы к БД не занимали общий ForkJoinPool.
+    // При переполнении очереди перезагрузка пропускается, а не выполняется в потоке запроса.
+    private final ThreadPoolExecutor refreshExecutor = new ThreadPoolExecutor(
+            2, 2, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(256),
+            Thread.ofPlatform().name("cache-refresh-", 0).daemon().factory());
+    // Снимки пишутся при остановке до закрытия кешей
+    private final List<Runnable> snapshotWriters = new CopyOnWriteArrayList<>();
+    // Пул загрузчиков асинхронных кешей создаётся при первом обращении
+    private ThreadPoolExecutor loadExecutor;
+    private InvalidationBroadcaster broadcaster;
+
+    @PostConstruct
+    public void init() {
+        invalidationBus.ifPresent(bus -> broadcaster = new InvalidationBroadcaster(bus,
+                environment.getProperty("cache.invalidation.batch-ms", Long.class, 50L)));
+    }
+
+    public <K, V> TaggedCache<K, V> createCache(String cacheName, int maxSize, long timeout) {
+        return createCache(cacheName, CacheSettings.of(maxSize, timeout));
+    }
+
+    // Реализация задаётся свойством cache.<имя>.backend, по умолчанию — cache.backend
+    public <K, V> TaggedCache<K, V> createCache(String cacheName,
+                                                CacheSettings<K, V> settings) {
+        TaggedCache<K, V> cache = switch (backendFor(cacheName)) {
+            case MYCACHE -> createMyCache(cacheName, settings);
+            case CAFFEINE -> new CaffeineTaggedCache<>(cacheName, settings, refreshExecutor);
+        };
+        caches.add(cache);
+        // Статистика и закрытие идут мимо обёртки, рассылаются только инвалидации
+        return broadcaster != null ? broadcaster.register(cache) : cache;
+    }
+
+    public <K, V> AsyncTaggedCache<K, V> createAsyncCache(String cacheName,
+                                                          CacheSettings<K, V> settings) {
+        return createAsyncCache(cacheName, settings, loadExecutor());
+    }
+
+    public <K, V> AsyncTaggedCache<K, V> createAsyncCache(String cacheName,
+                                                          CacheSettings<K, V> settings,
+                                                          Executor executor) {
+        return new AsyncTaggedCache<>(createCache(cacheName, settings), executor);
+    }
+
+    // Размер пула не больше пула соединений БД: загрузчики блокируются на JDBC
+    private synchronized Executor loadExecutor() {
+        if (loadExecutor == null) {
+            int threads = environment.getProperty("cache.async.threads", Integer.class, 8);
+            int queueCapacity = environment.getProperty("cache.async.queue-capacity",
+                    Integer.class, 1000);
+            loadExecutor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(queueCapacity),
+                    Thread.ofPlatform().name("cache-load-", 0).daemon().factory());
+        }
+        return loadExecutor;
+    }
+
+    private <K, V> MyCache<K, V> createMyCache(String cacheName, CacheSettings<K, V> settings) {
+        MyCache<K, V> cache = context.getBean(MyCache.class, cacheName, settings.maxWeight(),
+                settings.timeout(), settings.weigher(), expiryService);
+        if (settings.refreshAheadMillis() > 0) {
+            cache.setRefreshAhead(settings.refreshAheadMillis(), refreshExecutor);
+        }
+        if (settings.staleIfErrorMillis() > 0) {
+            cache.setStaleIfError(settings.staleIfErrorMillis());
+        }
+        if (settings.expectedEntries() > 0) {
+            cache.enableAdmissionFilter(settings.expectedEntries());
+        }
+        if (settings.maxTtlMillis() > 0) {
+            cache.enableAdaptiveTtl(settings.minTtlMillis(), settings.maxTtlMillis(),
+                    Math.max(settings.expectedEntries(), ADAPTIVE_TTL_ENTRIES));
+        }
+        if (settings.offHeapBytes() > 0) {
+            cache.enableOffHeapTier(settings.offHeapBytes(), settings.valueCodec());
+        }
+        if (settings.snapshotEntries() > 0) {
+            snapshotFile(cacheName).ifPresent(file -> enableSnapshot(cache, settings, file));
+        }
+        return cache;
+    }
+
+    // Каталог снимков задаётся свойством cache.snapshot.dir; без него снимки отключены
+    private Optional<Path> snapshotFile(String cacheName) {
+        String directory = environment.getProperty("cache.snapshot.dir", "");
+        if (directory.isBlank()) {
+            return Optional.empty();
+        }
+        return Optional.of(Path.of(directory.trim(), cacheName + ".snapshot"));
+    }
+
+    // Снимок читается один раз и удаляется: после падения без записи нового снимка
+    // старый не должен вернуться в кеш при следующем запуске
+    private <K, V> void enableSnapshot(MyCache<K, V> cache, CacheSettings<K, V> settings,
+                                       Path file) {
+        if (Files.exists(file)) {
+            try {
+                int loaded = cache.loadSnapshot(file, settings.keyCodec(), settings.valueCodec());
+                log.info("Restored {} entries of cache '{}' from {}",
+                        loaded, cache.getCacheName(), file);
+            } catch (IOException | RuntimeException e) {
+                log.warn("Failed to restore snapshot of cache '{}' from {}",
+                        cache.getCacheName(), file, e);
+            }
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                log.warn("Failed to delete snapshot {}", file, e);
+            }
+        }
+        snapshotWriters.add(() -> {
+            try {
+                int saved = cache.saveSnapshot(file, settings.snapshotEntries(),
+                        settings.keyCodec(), settings.valueCodec());
+                log.info("Saved {} entries of cache '{}' to {}",
+                        saved, cache.getCacheName(), file);
+            } catch (IOException | RuntimeException e) {
+                log.warn("Failed to save snapshot of cache '{}' to {}",
+                        cache.getCacheName(), file, e);
+            }
+        });
+    }
+
+    private CacheBackend backendFor(String cacheName) {
+        String backend = environment.getProperty("cache." + cacheName + ".backend",
+                environment.getProperty("cache.backend", CacheBackend.MYCACHE.name()));
+        try {
+            return CacheBackend.valueOf(backend.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalStateException(
+                    "Unknown backend '" + backend + "' for cache '" + cacheName + "'", e);
+        }
+    }
+
+    public List<CacheStatsSnapshot> getStats() {
+        return caches.stream()
+                .map(TaggedCache::getStats)
+                .toList();
+    }
+
+    public Optional<CacheStatsSnapshot> getStats(String cacheName) {
+        return caches.stream()
+                .filter(cache -> cache.getCacheName().equals(cacheName))
+                .map(TaggedCache::getStats)
+                .findFirst();
+    }
 
-    public <K, V> MyCache<K, V> createCache(String cacheName, int maxSize, long timeout) {
-        return context.getBean(MyCache.class, cacheName, maxSize, timeout);
+    @PreDestroy
+    public void closeAll() {
+        if (broadcaster != null) {
+            broadcaster.close();
+        }
+        snapshotWriters.forEach(Runnable::run);
+        snapshotWriters.clear();
+        caches.forEach(TaggedCache::close);
+        caches.clear();
+        refreshExecutor.shutdownNow();
+        synchronized (this) {
+            if (loadExecutor != null) {
+                loadExecutor.shutdownNow();
+            }
+        }
     }
-}
\ No newline at end of file
+}
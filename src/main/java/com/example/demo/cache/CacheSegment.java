@@ -0,0 +1,267 @@
+package com.example.demo.cache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import java.util.function.Predicate;
+
+/**
+ * Один сегмент {@link MyCache}: чтения идут через {@link ConcurrentHashMap} без блокировок,
+ * а все изменения карты и кольца CLOCK выполняются под локом сегмента.
+ */
+final class CacheSegment<K, V> {
+    private final ConcurrentHashMap<K, Node<K, V>> map;
+    private final ReentrantLock lock = new ReentrantLock();
+    // Бюджет сегмента: число записей или суммарный вес, если задан Weigher
+    private final long capacity;
+    private final BiConsumer<Node<K, V>, RemovalCause> removalListener;
+    // Фильтр допуска TinyLFU; null — новые записи принимаются всегда
+    private volatile FrequencySketch admission;
+
+    // Кольцо CLOCK и вес защищены lock
+    private Node<K, V> hand;
+    private long weightedSize;
+
+    static final class Node<K, V> extends ExpiryTimer {
+        final CacheSegment<K, V> segment;
+        final K key;
+        final V value;
+        final Set<String> tags;
+        final int weight;
+        // До этого момента значение свежее, после — отдаётся только при ошибке загрузчика
+        final long freshUntil;
+        volatile boolean referenced;
+        volatile boolean removed;
+        Node<K, V> prev;
+        Node<K, V> next;
+
+        Node(CacheSegment<K, V> segment, K key, V value, long freshUntil, long expiryTime,
+             Set<String> tags, int weight) {
+            super(expiryTime);
+            this.freshUntil = freshUntil;
+            this.segment = segment;
+            this.key = key;
+            this.value = value;
+            this.tags = tags;
+            this.weight = weight;
+        }
+
+        @Override
+        boolean isCancelled() {
+            return removed;
+        }
+
+        @Override
+        boolean expire() {
+            return segment.removeNode(this, RemovalCause.EXPIRED);
+        }
+    }
+
+    // removalListener вызывается под локом сегмента для каждого удалённого узла
+    CacheSegment(long capacity, int expectedEntries,
+                 BiConsumer<Node<K, V>, RemovalCause> removalListener) {
+        this.capacity = capacity;
+        this.removalListener = removalListener;
+        this.map = new ConcurrentHashMap<>(Math.max(16, expectedEntries * 4 / 3 + 1));
+    }
+
+    // Возвращает и устаревшие узлы, пока не наступил их expiryTime
+    Node<K, V> getNode(K key, long now) {
+        Node<K, V> node = map.get(key);
+        if (node == null) {
+            return null;
+        }
+        if (node.expiryTime < now) {
+            removeNode(node, RemovalCause.EXPIRED);
+            return null;
+        }
+        // Избегаем лишней записи в общую кеш-линию, если бит уже выставлен
+        if (!node.referenced) {
+            node.referenced = true;
+        }
+        return node;
+    }
+
+    Node<K, V> put(K key, V value, long freshUntil, long expiryTime, Set<String> tags,
+                   int weight) {
+        Node<K, V> node = new Node<>(this, key, value, freshUntil, expiryTime, tags, weight);
+        lock.lock();
+        try {
+            if (weight > capacity) {
+                // Запись тяжелее всего бюджета сегмента не кешируем, старое значение устарело
+                remove(key);
+                node.removed = true;
+                removalListener.accept(node, RemovalCause.REJECTED);
+                return node;
+            }
+            if (!admit(key, weight)) {
+                node.removed = true;
+                removalListener.accept(node, RemovalCause.REJECTED);
+                return node;
+            }
+            Node<K, V> old = map.put(key, node);
+            if (old != null) {
+                detach(old, RemovalCause.REPLACED);
+            }
+            weightedSize += weight;
+            // Вытесняем до вставки, чтобы новый узел не стал жертвой
+            while (weightedSize > capacity) {
+                evictOne();
+            }
+            link(node);
+            return node;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void remove(K key) {
+        lock.lock();
+        try {
+            Node<K, V> node = map.remove(key);
+            if (node != null) {
+                detach(node, RemovalCause.EXPLICIT);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    boolean removeNode(Node<K, V> node, RemovalCause cause) {
+        lock.lock();
+        try {
+            if (map.remove(node.key, node)) {
+                detach(node, cause);
+                return true;
+            }
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void removeIf(Predicate<Node<K, V>> filter, RemovalCause cause) {
+        lock.lock();
+        try {
+            map.values().removeIf(node -> {
+                if (filter.test(node)) {
+                    detach(node, cause);
+                    return true;
+                }
+                return false;
+            });
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void clear() {
+        removeIf(node -> true, RemovalCause.EXPLICIT);
+    }
+
+    // Слабо согласованная копия: параллельные изменения в неё могут не попасть
+    List<Node<K, V>> nodes() {
+        return new ArrayList<>(map.values());
+    }
+
+    int size() {
+        return map.size();
+    }
+
+    long weightedSize() {
+        lock.lock();
+        try {
+            return weightedSize;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void setAdmission(FrequencySketch admission) {
+        this.admission = admission;
+    }
+
+    // Новый ключ принимается, только если обращаются к нему чаще, чем к каждой записи,
+    // которую вытеснит цикл в put. С Weigher это может быть несколько записей: они
+    // перебираются в порядке CLOCK — сначала узлы без бита обращения, затем остальные
+    // (к ним стрелка вернётся, сняв бит), пока не наберётся нужный вес
+    private boolean admit(K key, int weight) {
+        FrequencySketch sketch = admission;
+        if (sketch == null || weightedSize + weight <= capacity || map.containsKey(key)) {
+            return true;
+        }
+        int frequency = sketch.frequency(key);
+        long needed = weightedSize + weight - capacity;
+        long freed = 0;
+        Node<K, V> start = advanceHand();
+        for (int lap = 0; lap < 2; lap++) {
+            Node<K, V> node = start;
+            do {
+                if (node.referenced == (lap == 1)) {
+                    if (frequency <= sketch.frequency(node.key)) {
+                        return false;
+                    }
+                    freed += node.weight;
+                    if (freed >= needed) {
+                        return true;
+                    }
+                }
+                node = node.next;
+            } while (node != start);
+        }
+        return true;
+    }
+
+    // Новый узел встаёт прямо за стрелкой, т.е. будет проверен последним
+    private void link(Node<K, V> node) {
+        if (hand == null) {
+            node.prev = node;
+            node.next = node;
+            hand = node;
+            return;
+        }
+        node.next = hand;
+        node.prev = hand.prev;
+        hand.prev.next = node;
+        hand.prev = node;
+    }
+
+    private void detach(Node<K, V> node, RemovalCause cause) {
+        unlink(node);
+        weightedSize -= node.weight;
+        node.removed = true;
+        removalListener.accept(node, cause);
+    }
+
+    private void unlink(Node<K, V> node) {
+        if (node.next == node) {
+            hand = null;
+        } else {
+            node.prev.next = node.next;
+            node.next.prev = node.prev;
+            if (hand == node) {
+                hand = node.next;
+            }
+        }
+        node.prev = null;
+        node.next = null;
+    }
+
+    // Стрелка снимает бит обращения, пока не найдёт узел без него
+    private Node<K, V> advanceHand() {
+        while (hand.referenced) {
+            hand.referenced = false;
+            hand = hand.next;
+        }
+        return hand;
+    }
+
+    private void evictOne() {
+        Node<K, V> victim = advanceHand();
+        map.remove(victim.key, victim);
+        detach(victim, RemovalCause.SIZE);
+    }
+}
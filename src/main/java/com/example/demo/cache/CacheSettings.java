@@ -0,0 +1,96 @@
+package com.example.demo.cache;
+
+// Параметры кеша, общие для всех реализаций TaggedCache; нули отключают необязательные режимы
+public record CacheSettings<K, V>(
+        long maxWeight,
+        long timeout,
+        Weigher<? super K, ? super V> weigher,
+        long refreshAheadMillis,
+        long staleIfErrorMillis,
+        int expectedEntries,
+        long offHeapBytes,
+        int snapshotEntries,
+        long minTtlMillis,
+        long maxTtlMillis,
+        ValueCodec<K> keyCodec,
+        ValueCodec<V> valueCodec) {
+
+    public CacheSettings {
+        if (maxWeight <= 0) {
+            throw new IllegalArgumentException("Cache size must be greater than 0");
+        }
+        // Та же граница, что в конструкторе MyCache: обе реализации отвергают одни настройки
+        if (timeout < 10_000) {
+            throw new IllegalArgumentException("Timeout must be at least 10ms");
+        }
+        if (refreshAheadMillis < 0 || staleIfErrorMillis < 0 || expectedEntries < 0
+                || offHeapBytes < 0 || snapshotEntries < 0) {
+            throw new IllegalArgumentException("Cache settings must not be negative");
+        }
+        if (maxTtlMillis > 0 && (minTtlMillis <= refreshAheadMillis
+                || minTtlMillis > timeout || maxTtlMillis < timeout)) {
+            throw new IllegalArgumentException(
+                    "Adaptive TTL bounds must satisfy refresh window < min <= timeout <= max");
+        }
+        if ((offHeapBytes > 0 || snapshotEntries > 0) && valueCodec == null) {
+            throw new IllegalArgumentException(
+                    "Off-heap tier and snapshots require a value codec");
+        }
+        if (snapshotEntries > 0 && keyCodec == null) {
+            throw new IllegalArgumentException("Snapshots require a key codec");
+        }
+    }
+
+    public static <K, V> CacheSettings<K, V> of(int maxSize, long timeout) {
+        return new CacheSettings<>(maxSize, timeout, Weigher.singleton(), 0, 0, 0, 0, 0, 0, 0,
+                null, null);
+    }
+
+    public static <K, V> CacheSettings<K, V> weighted(long maxWeight, long timeout,
+                                                      Weigher<? super K, ? super V> weigher) {
+        return new CacheSettings<>(maxWeight, timeout, weigher, 0, 0, 0, 0, 0, 0, 0,
+                null, null);
+    }
+
+    public CacheSettings<K, V> withRefreshAhead(long millis) {
+        return new CacheSettings<>(maxWeight, timeout, weigher, millis, staleIfErrorMillis,
+                expectedEntries, offHeapBytes, snapshotEntries, minTtlMillis, maxTtlMillis,
+                keyCodec, valueCodec);
+    }
+
+    public CacheSettings<K, V> withStaleIfError(long millis) {
+        return new CacheSettings<>(maxWeight, timeout, weigher, refreshAheadMillis, millis,
+                expectedEntries, offHeapBytes, snapshotEntries, minTtlMillis, maxTtlMillis,
+                keyCodec, valueCodec);
+    }
+
+    // Для Caffeine это только начальная ёмкость: фильтр допуска у него встроенный
+    public CacheSettings<K, V> withAdmissionFilter(int entries) {
+        return new CacheSettings<>(maxWeight, timeout, weigher, refreshAheadMillis,
+                staleIfErrorMillis, entries, offHeapBytes, snapshotEntries, minTtlMillis,
+                maxTtlMillis, keyCodec, valueCodec);
+    }
+
+    // Только для MyCache: Caffeine хранит записи лишь в куче и эти параметры игнорирует
+    public CacheSettings<K, V> withOffHeapTier(long bytes, ValueCodec<V> codec) {
+        return new CacheSettings<>(maxWeight, timeout, weigher, refreshAheadMillis,
+                staleIfErrorMillis, expectedEntries, bytes, snapshotEntries, minTtlMillis,
+                maxTtlMillis, keyCodec, codec);
+    }
+
+    // Только для MyCache: до entries самых востребованных записей переживают рестарт
+    public CacheSettings<K, V> withSnapshot(int entries, ValueCodec<K> keys,
+                                            ValueCodec<V> values) {
+        return new CacheSettings<>(maxWeight, timeout, weigher, refreshAheadMillis,
+                staleIfErrorMillis, expectedEntries, offHeapBytes, entries, minTtlMillis,
+                maxTtlMillis, keys, values);
+    }
+
+    // Только для MyCache: timeout становится базовым TTL, который растёт для часто
+    // читаемых ключей и сокращается для часто инвалидируемых, не выходя за [min, max]
+    public CacheSettings<K, V> withAdaptiveTtl(long minMillis, long maxMillis) {
+        return new CacheSettings<>(maxWeight, timeout, weigher, refreshAheadMillis,
+                staleIfErrorMillis, expectedEntries, offHeapBytes, snapshotEntries, minMillis,
+                maxMillis, keyCodec, valueCodec);
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.demo.cache;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Файл снимка кеша для тёплого рестарта: заголовок и записи с ключом, значением,
+ * тегами и абсолютным временем окончания свежести. Время простоя между остановкой
+ * и запуском вычитается из TTL само. Файл пишется во временный и атомарно
+ * подменяет старый, поэтому при падении во время записи остаётся прежний снимок.
+ */
+final class CacheSnapshot {
+    private static final int MAGIC = 0x4D43534E;
+    private static final int VERSION = 1;
+
+    record Entry<K, V>(K key, V value, long freshUntil, Set<String> tags) {
+    }
+
+    private CacheSnapshot() {
+        throw new UnsupportedOperationException("Utility class");
+    }
+
+    static <K, V> void write(Path file, List<Entry<K, V>> entries, ValueCodec<K> keyCodec,
+                             ValueCodec<V> valueCodec) throws IOException {
+        Path directory = file.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temp = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(entries.size());
+                for (Entry<K, V> entry : entries) {
+                    out.writeLong(entry.freshUntil());
+                    out.writeInt(entry.tags().size());
+                    for (String tag : entry.tags()) {
+                        out.writeUTF(tag);
+                    }
+                    keyCodec.encode(entry.key(), out);
+                    valueCodec.encode(entry.value(), out);
+                }
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    static <K, V> List<Entry<K, V>> read(Path file, ValueCodec<K> keyCodec,
+                                         ValueCodec<V> valueCodec) throws IOException {
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Unsupported cache snapshot format: " + file);
+            }
+            int count = in.readInt();
+            List<Entry<K, V>> entries = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                long freshUntil = in.readLong();
+                int tagCount = in.readInt();
+                Set<String> tags = new HashSet<>(tagCount);
+                for (int j = 0; j < tagCount; j++) {
+                    tags.add(in.readUTF());
+                }
+                K key = keyCodec.decode(in);
+                V value = valueCodec.decode(in);
+                entries.add(new Entry<>(key, value, freshUntil, Set.copyOf(tags)));
+            }
+            return entries;
+        }
+    }
+}
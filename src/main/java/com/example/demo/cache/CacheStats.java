@@ -0,0 +1,122 @@
+package com.example.demo.cache;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Счётчики одного кеша. Все поля — {@link LongAdder}, поэтому запись с горячего пути
+ * не создаёт общей точки конкуренции между потоками.
+ */
+public final class CacheStats {
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder loadSuccesses = new LongAdder();
+    private final LongAdder loadFailures = new LongAdder();
+    private final LongAdder totalLoadNanos = new LongAdder();
+    private final LongAdder deduplicatedLoads = new LongAdder();
+    private final LongAdder refreshes = new LongAdder();
+    private final LongAdder staleHits = new LongAdder();
+    private final LatencyHistogram loadLatency = new LatencyHistogram();
+    private final TtlHistogram ttl = new TtlHistogram();
+    private final LongAdder[] removals = new LongAdder[RemovalCause.values().length];
+
+    public CacheStats() {
+        for (int i = 0; i < removals.length; i++) {
+            removals[i] = new LongAdder();
+        }
+    }
+
+    void recordHit() {
+        hits.increment();
+    }
+
+    void recordMiss() {
+        misses.increment();
+    }
+
+    void recordLoadSuccess(long nanos) {
+        loadSuccesses.increment();
+        totalLoadNanos.add(nanos);
+        loadLatency.record(nanos);
+    }
+
+    void recordLoadFailure(long nanos) {
+        loadFailures.increment();
+        totalLoadNanos.add(nanos);
+        loadLatency.record(nanos);
+    }
+
+    void recordDeduplicatedLoad() {
+        deduplicatedLoads.increment();
+    }
+
+    void recordRefresh() {
+        refreshes.increment();
+    }
+
+    void recordStaleHit() {
+        staleHits.increment();
+    }
+
+    void recordTtl(long millis) {
+        ttl.record(millis);
+    }
+
+    void recordRemoval(RemovalCause cause) {
+        removals[cause.ordinal()].increment();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getDeduplicatedLoads() {
+        return deduplicatedLoads.sum();
+    }
+
+    public long getRefreshes() {
+        return refreshes.sum();
+    }
+
+    public long getStaleHits() {
+        return staleHits.sum();
+    }
+
+    public long getRemovals(RemovalCause cause) {
+        return removals[cause.ordinal()].sum();
+    }
+
+    public CacheStatsSnapshot snapshot(String cacheName, int size, long weightedSize,
+                                       long maxWeight, List<CacheTierStats> tiers) {
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        long requests = hitCount + missCount;
+        long loads = loadSuccesses.sum() + loadFailures.sum();
+        Map<RemovalCause, Long> removalCounts = new EnumMap<>(RemovalCause.class);
+        for (RemovalCause cause : RemovalCause.values()) {
+            removalCounts.put(cause, getRemovals(cause));
+        }
+        return new CacheStatsSnapshot(
+                cacheName,
+                size,
+                weightedSize,
+                maxWeight,
+                hitCount,
+                missCount,
+                requests == 0 ? 0 : (double) hitCount / requests,
+                loadSuccesses.sum(),
+                loadFailures.sum(),
+                deduplicatedLoads.sum(),
+                refreshes.sum(),
+                staleHits.sum(),
+                loads == 0 ? 0 : totalLoadNanos.sum() / 1_000_000.0 / loads,
+                loadLatency.percentileMillis(0.5),
+                loadLatency.percentileMillis(0.99),
+                loadLatency.buckets(),
+                ttl.buckets(),
+                removalCounts,
+                tiers);
+    }
+}
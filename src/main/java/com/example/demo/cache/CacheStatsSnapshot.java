@@ -0,0 +1,26 @@
+package com.example.demo.cache;
+
+import java.util.List;
+import java.util.Map;
+
+public record CacheStatsSnapshot(
+        String cacheName,
+        int size,
+        long weightedSize,
+        long maxWeight,
+        long hits,
+        long misses,
+        double hitRate,
+        long loadSuccesses,
+        long loadFailures,
+        long deduplicatedLoads,
+        long refreshes,
+        long staleHits,
+        double averageLoadMillis,
+        double loadP50Millis,
+        double loadP99Millis,
+        Map<String, Long> loadLatencyHistogram,
+        Map<String, Long> ttlHistogram,
+        Map<RemovalCause, Long> removals,
+        List<CacheTierStats> tiers) {
+}
@@ -0,0 +1,20 @@
+package com.example.demo.cache;
+
+public final class CacheTags {
+
+    private CacheTags() {
+        throw new UnsupportedOperationException("Utility class");
+    }
+
+    public static String player(Long playerId) {
+        return "player:" + playerId;
+    }
+
+    public static String playerName(String name) {
+        return "player-name:" + name;
+    }
+
+    public static String tournament(Long tournamentId) {
+        return "tournament:" + tournamentId;
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.demo.cache;
+
+// used и capacity для heap — в единицах веса записей, для off-heap — в байтах
+public record CacheTierStats(
+        String tier,
+        long entries,
+        long used,
+        long capacity,
+        long hits) {
+}
@@ -0,0 +1,388 @@
+package com.example.demo.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * {@link TaggedCache} поверх Caffeine. Вытеснение (W-TinyLFU), учёт веса и TTL выполняет
+ * Caffeine, а теги, перезагрузка заранее и stale-if-error повторяют семантику {@link MyCache}.
+ * Caffeine не различает причины явного удаления, поэтому инвалидации по тегам и ключам
+ * попадают в статистику как {@link RemovalCause#EXPLICIT}.
+ */
+@Slf4j
+final class CaffeineTaggedCache<K, V> implements TaggedCache<K, V> {
+
+    private record Entry<V>(V value, Set<String> tags, long freshUntil) {
+    }
+
+    private final String cacheName;
+    private final long maxWeight;
+    private final long defaultTimeout;
+    private final long refreshAheadMillis;
+    private final Executor refreshExecutor;
+    private final Cache<K, Entry<V>> cache;
+    // Тег -> ключи; индекс может ссылаться на уже заменённые записи, это проверяется при удалении
+    private final ConcurrentHashMap<String, Set<K>> tagIndex = new ConcurrentHashMap<>();
+    private final Set<K> refreshing = ConcurrentHashMap.newKeySet();
+    private final InvalidationLog invalidations = new InvalidationLog();
+    private final CacheStats stats = new CacheStats();
+    private final List<RemovalListener<K, V>> removalListeners = new CopyOnWriteArrayList<>();
+    private volatile boolean closed;
+
+    CaffeineTaggedCache(String cacheName, CacheSettings<? super K, ? super V> settings,
+                        Executor refreshExecutor) {
+        this.cacheName = cacheName;
+        this.maxWeight = settings.maxWeight();
+        this.defaultTimeout = settings.timeout();
+        this.refreshAheadMillis = settings.refreshAheadMillis();
+        this.refreshExecutor = refreshExecutor;
+        Weigher<? super K, ? super V> weigher = settings.weigher();
+        this.cache = Caffeine.newBuilder()
+                .initialCapacity(settings.expectedEntries())
+                .maximumWeight(settings.maxWeight())
+                .weigher((K key, Entry<V> entry) -> weigher.weigh(key, entry.value()))
+                .expireAfterWrite(
+                        Duration.ofMillis(settings.timeout() + settings.staleIfErrorMillis()))
+                .removalListener(this::onRemoval)
+                .build();
+    }
+
+    // Устаревшая запись без загрузчика считается промахом
+    @Override
+    public V get(K key) {
+        Entry<V> entry = cache.getIfPresent(key);
+        if (entry != null && System.currentTimeMillis() <= entry.freshUntil()) {
+            stats.recordHit();
+            return entry.value();
+        }
+        stats.recordMiss();
+        return null;
+    }
+
+    @Override
+    public V get(K key, Supplier<V> valueLoader) {
+        return get(key, valueLoader, value -> Set.of());
+    }
+
+    @Override
+    public V get(K key, Supplier<V> valueLoader,
+                 Function<? super V, ? extends Collection<String>> tagger) {
+        long now = System.currentTimeMillis();
+        Entry<V> entry = cache.getIfPresent(key);
+
+        if (entry != null && now <= entry.freshUntil()) {
+            stats.recordHit();
+            if (refreshAheadMillis > 0 && now > entry.freshUntil() - refreshAheadMillis) {
+                refresh(key, valueLoader, tagger);
+            }
+            return entry.value();
+        }
+        stats.recordMiss();
+
+        try {
+            return load(key, valueLoader, tagger);
+        } catch (RuntimeException e) {
+            if (entry == null) {
+                throw e;
+            }
+            log.warn("Serving stale value of cache '{}' after load failure", cacheName, e);
+            stats.recordStaleHit();
+            return entry.value();
+        }
+    }
+
+    @Override
+    public V getIfFresh(K key, Supplier<V> valueLoader,
+                        Function<? super V, ? extends Collection<String>> tagger) {
+        long now = System.currentTimeMillis();
+        Entry<V> entry = cache.getIfPresent(key);
+        if (entry != null && now <= entry.freshUntil()) {
+            stats.recordHit();
+            if (refreshAheadMillis > 0 && now > entry.freshUntil() - refreshAheadMillis) {
+                refresh(key, valueLoader, tagger);
+            }
+            return entry.value();
+        }
+        stats.recordMiss();
+        return null;
+    }
+
+    // compute блокирует ключ, так что конкурирующие промахи ждут одну загрузку
+    private V load(K key, Supplier<V> valueLoader,
+                   Function<? super V, ? extends Collection<String>> tagger) {
+        long epoch = invalidations.epoch();
+        Object[] loaded = new Object[1];
+        Entry<V> stored = cache.asMap().compute(key, (k, current) -> {
+            if (current != null && System.currentTimeMillis() <= current.freshUntil()) {
+                stats.recordDeduplicatedLoad();
+                loaded[0] = current.value();
+                return current;
+            }
+            V value = timedLoad(valueLoader);
+            loaded[0] = value;
+            if (value == null || closed) {
+                return current;
+            }
+            // Значение, загруженное до инвалидации его ключа или тегов, могло устареть
+            Set<String> tags = Set.copyOf(tagger.apply(value));
+            if (invalidations.isStale(epoch, k, tags)) {
+                return current;
+            }
+            return newEntry(value, tags);
+        });
+        if (stored != null) {
+            index(key, stored, epoch);
+        }
+        @SuppressWarnings("unchecked")
+        V value = (V) loaded[0];
+        return value;
+    }
+
+    @Override
+    public Map<K, V> getAll(Collection<? extends K> keys, Function<Set<K>, Map<K, V>> batchLoader,
+                            Function<? super V, ? extends Collection<String>> tagger) {
+        long now = System.currentTimeMillis();
+        Map<K, V> found = new HashMap<>();
+        Set<K> missing = new LinkedHashSet<>();
+        for (K key : keys) {
+            if (found.containsKey(key) || missing.contains(key)) {
+                continue;
+            }
+            Entry<V> entry = cache.getIfPresent(key);
+            if (entry != null && now <= entry.freshUntil()) {
+                stats.recordHit();
+                found.put(key, entry.value());
+            } else {
+                stats.recordMiss();
+                missing.add(key);
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            long epoch = invalidations.epoch();
+            Map<K, V> loaded = timedLoad(() -> batchLoader.apply(
+                    Collections.unmodifiableSet(missing)));
+            for (K key : missing) {
+                V value = loaded.get(key);
+                if (value != null) {
+                    store(key, value, Set.copyOf(tagger.apply(value)), epoch);
+                    found.put(key, value);
+                }
+            }
+        }
+
+        Map<K, V> result = new LinkedHashMap<>();
+        for (K key : keys) {
+            V value = found.get(key);
+            if (value != null) {
+                result.put(key, value);
+            }
+        }
+        return result;
+    }
+
+    private void refresh(K key, Supplier<V> valueLoader,
+                         Function<? super V, ? extends Collection<String>> tagger) {
+        if (refreshExecutor == null || !refreshing.add(key)) {
+            return;
+        }
+        long epoch = invalidations.epoch();
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    V value = timedLoad(valueLoader);
+                    if (value != null) {
+                        store(key, value, Set.copyOf(tagger.apply(value)), epoch);
+                    }
+                } catch (RuntimeException e) {
+                    log.warn("Refresh of cache '{}' failed", cacheName, e);
+                } finally {
+                    refreshing.remove(key);
+                }
+            });
+            stats.recordRefresh();
+        } catch (RejectedExecutionException e) {
+            refreshing.remove(key);
+        }
+    }
+
+    private <T> T timedLoad(Supplier<T> valueLoader) {
+        long start = System.nanoTime();
+        try {
+            T value = valueLoader.get();
+            stats.recordLoadSuccess(System.nanoTime() - start);
+            return value;
+        } catch (RuntimeException | Error e) {
+            stats.recordLoadFailure(System.nanoTime() - start);
+            throw e;
+        }
+    }
+
+    private Entry<V> newEntry(V value, Set<String> tags) {
+        stats.recordTtl(defaultTimeout);
+        return new Entry<>(value, tags, System.currentTimeMillis() + defaultTimeout);
+    }
+
+    @Override
+    public void put(K key, V value) {
+        put(key, value, Set.of());
+    }
+
+    @Override
+    public void put(K key, V value, Collection<String> tags) {
+        store(key, value, Set.copyOf(tags), invalidations.epoch());
+    }
+
+    private void store(K key, V value, Set<String> tags, long epoch) {
+        if (closed || invalidations.isStale(epoch, key, tags)) {
+            return;
+        }
+        Entry<V> entry = newEntry(value, tags);
+        cache.put(key, entry);
+        index(key, entry, epoch);
+    }
+
+    // Запись могли инвалидировать до того, как её ключ попал в индекс
+    private void index(K key, Entry<V> entry, long epoch) {
+        if (entry.tags().isEmpty()) {
+            return;
+        }
+        for (String tag : entry.tags()) {
+            tagIndex.computeIfAbsent(tag, t -> ConcurrentHashMap.newKeySet()).add(key);
+        }
+        if (invalidations.isStale(epoch, key, entry.tags())) {
+            cache.asMap().remove(key, entry);
+        }
+    }
+
+    private void onRemoval(K key, Entry<V> entry,
+                           com.github.benmanes.caffeine.cache.RemovalCause cause) {
+        if (key == null || entry == null) {
+            return;
+        }
+        RemovalCause removalCause = switch (cause) {
+            case EXPLICIT -> RemovalCause.EXPLICIT;
+            case REPLACED -> RemovalCause.REPLACED;
+            case EXPIRED -> RemovalCause.EXPIRED;
+            case SIZE, COLLECTED -> RemovalCause.SIZE;
+        };
+        stats.recordRemoval(removalCause);
+        unindex(key, entry);
+        // Caffeine уже вызывает этот колбэк в своём executor, вне потока записи
+        for (RemovalListener<K, V> listener : removalListeners) {
+            try {
+                listener.onRemoval(key, entry.value(), removalCause);
+            } catch (RuntimeException e) {
+                log.warn("Removal listener of cache '{}' failed", cacheName, e);
+            }
+        }
+    }
+
+    private void unindex(K key, Entry<V> entry) {
+        Entry<V> current = cache.policy().getIfPresentQuietly(key);
+        for (String tag : entry.tags()) {
+            if (current != null && current.tags().contains(tag)) {
+                continue;
+            }
+            tagIndex.computeIfPresent(tag, (t, keys) -> {
+                keys.remove(key);
+                return keys.isEmpty() ? null : keys;
+            });
+        }
+    }
+
+    @Override
+    public void remove(K key) {
+        invalidations.invalidateKey(key);
+        cache.invalidate(key);
+    }
+
+    @Override
+    public void invalidateTag(String tag) {
+        invalidateTags(Set.of(tag));
+    }
+
+    @Override
+    public void invalidateTags(Collection<String> tags) {
+        invalidations.invalidateTags(tags);
+        for (String tag : tags) {
+            Set<K> keys = tagIndex.remove(tag);
+            if (keys != null) {
+                for (K key : keys) {
+                    cache.asMap().computeIfPresent(key,
+                            (k, entry) -> entry.tags().contains(tag) ? null : entry);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void invalidateIf(Predicate<? super K> keyFilter) {
+        invalidations.invalidateAll();
+        cache.asMap().keySet().removeIf(keyFilter);
+    }
+
+    @Override
+    public void clear() {
+        invalidations.invalidateAll();
+        cache.invalidateAll();
+    }
+
+    @Override
+    public int size() {
+        return (int) cache.estimatedSize();
+    }
+
+    @Override
+    public long weightedSize() {
+        return cache.policy().eviction()
+                .map(eviction -> eviction.weightedSize().orElse(cache.estimatedSize()))
+                .orElse(cache.estimatedSize());
+    }
+
+    @Override
+    public void addRemovalListener(RemovalListener<K, V> listener) {
+        removalListeners.add(listener);
+    }
+
+    @Override
+    public String getCacheName() {
+        return cacheName;
+    }
+
+    @Override
+    public CacheStatsSnapshot getStats() {
+        // Уровня вне кучи у Caffeine нет: все попадания приходятся на heap
+        CacheTierStats heap = new CacheTierStats("heap", size(), weightedSize(), maxWeight,
+                stats.getHits());
+        return stats.snapshot(cacheName, size(), weightedSize(), maxWeight, List.of(heap));
+    }
+
+    // Caffeine применяет буфер записей асинхронно; тестам нужен точный вес
+    void cleanUp() {
+        cache.cleanUp();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        clear();
+    }
+}
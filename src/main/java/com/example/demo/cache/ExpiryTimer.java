@@ -0,0 +1,20 @@
+package com.example.demo.cache;
+
+/**
+ * Элемент {@link HierarchicalTimingWheel}. Отмена ленивая: колесо просто пропускает
+ * таймеры, для которых {@link #isCancelled()} вернул true.
+ */
+abstract class ExpiryTimer {
+    final long expiryTime;
+    // Односвязный список корзины, меняется только потоком колеса
+    ExpiryTimer wheelNext;
+
+    ExpiryTimer(long expiryTime) {
+        this.expiryTime = expiryTime;
+    }
+
+    abstract boolean isCancelled();
+
+    // Возвращает true, если запись действительно была удалена
+    abstract boolean expire();
+}
@@ -0,0 +1,89 @@
+package com.example.demo.cache;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Count-Min sketch с 4-битными счётчиками для оценки частоты обращений к ключам (TinyLFU).
+ * В каждом {@code long} таблицы лежит 16 счётчиков, ключ попадает в 4 из них по разным хешам.
+ * После {@code sampleSize} увеличений все счётчики делятся пополам, поэтому давно горячие,
+ * но остывшие ключи со временем теряют преимущество. Обновления идут через CAS без локов;
+ * гонка со сбросом даёт лишь небольшую погрешность оценки.
+ */
+final class FrequencySketch {
+    private static final long[] SEEDS = {
+        0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L
+    };
+    private static final long RESET_MASK = 0x7777777777777777L;
+    private static final int MAX_COUNT = 15;
+
+    private final AtomicLongArray table;
+    private final int tableMask;
+    private final int sampleSize;
+    private final AtomicInteger additions = new AtomicInteger();
+
+    FrequencySketch(int expectedEntries) {
+        // Ближайшая сверху степень двойки, не больше 2^24 слов
+        int size = Integer.highestOneBit(Math.clamp(expectedEntries - 1L, 15, 1 << 24) << 1);
+        this.table = new AtomicLongArray(size);
+        this.tableMask = size - 1;
+        this.sampleSize = 10 * size;
+    }
+
+    int frequency(Object key) {
+        int hash = spread(key.hashCode());
+        int start = (hash & 3) << 2;
+        int frequency = MAX_COUNT;
+        for (int i = 0; i < 4; i++) {
+            long word = table.get(indexOf(hash, i));
+            int shift = (start + i) << 2;
+            frequency = Math.min(frequency, (int) ((word >>> shift) & 0xF));
+        }
+        return frequency;
+    }
+
+    void increment(Object key) {
+        int hash = spread(key.hashCode());
+        int start = (hash & 3) << 2;
+        boolean added = false;
+        for (int i = 0; i < 4; i++) {
+            added |= incrementAt(indexOf(hash, i), (start + i) << 2);
+        }
+        // Сброс выполняет ровно один поток — тот, что досчитал до sampleSize
+        if (added && additions.incrementAndGet() == sampleSize) {
+            reset();
+        }
+    }
+
+    private boolean incrementAt(int index, int shift) {
+        long mask = 0xFL << shift;
+        while (true) {
+            long word = table.get(index);
+            if ((word & mask) == mask) {
+                return false;
+            }
+            if (table.compareAndSet(index, word, word + (1L << shift))) {
+                return true;
+            }
+        }
+    }
+
+    private void reset() {
+        for (int i = 0; i < table.length(); i++) {
+            table.getAndUpdate(i, word -> (word >>> 1) & RESET_MASK);
+        }
+        additions.addAndGet(-sampleSize / 2);
+    }
+
+    private int indexOf(int hash, int depth) {
+        long h = (hash + SEEDS[depth]) * SEEDS[depth];
+        h += h >>> 32;
+        return (int) h & tableMask;
+    }
+
+    private static int spread(int hash) {
+        hash = ((hash >>> 16) ^ hash) * 0x45d9f3b;
+        hash = ((hash >>> 16) ^ hash) * 0x45d9f3b;
+        return (hash >>> 16) ^ hash;
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.demo.cache;
+
+import java.util.function.Consumer;
+
+/**
+ * Иерархическое колесо таймеров: {@value #LEVELS} уровня по {@value #WHEEL_SIZE} корзин.
+ * Корзина уровня L покрывает 64^L тиков; при переходе через границу уровня её таймеры
+ * перераскладываются на уровень ниже, поэтому каждый таймер переносится не более
+ * {@value #LEVELS} раз. Не потокобезопасно — используется одним потоком.
+ */
+final class HierarchicalTimingWheel {
+    static final int WHEEL_BITS = 6;
+    static final int WHEEL_SIZE = 1 << WHEEL_BITS;
+    static final int LEVELS = 4;
+    private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+    private static final long MAX_DELTA = (1L << (WHEEL_BITS * LEVELS)) - 1;
+
+    private final long tickMs;
+    private final ExpiryTimer[][] buckets = new ExpiryTimer[LEVELS][WHEEL_SIZE];
+    private long currentTick;
+
+    HierarchicalTimingWheel(long tickMs, long now) {
+        this.tickMs = tickMs;
+        this.currentTick = now / tickMs;
+    }
+
+    // Уже просроченный таймер сработает на ближайшем тике
+    void add(ExpiryTimer timer) {
+        place(timer, currentTick + 1);
+    }
+
+    void advance(long now, Consumer<ExpiryTimer> onExpire) {
+        long target = now / tickMs;
+        while (currentTick < target) {
+            currentTick++;
+            cascade();
+            int index = (int) (currentTick & WHEEL_MASK);
+            ExpiryTimer timer = buckets[0][index];
+            buckets[0][index] = null;
+            while (timer != null) {
+                ExpiryTimer next = timer.wheelNext;
+                timer.wheelNext = null;
+                if (!timer.isCancelled()) {
+                    if (tickOf(timer) <= currentTick) {
+                        onExpire.accept(timer);
+                    } else {
+                        place(timer, currentTick + 1);
+                    }
+                }
+                timer = next;
+            }
+        }
+    }
+
+    // Сначала старшие уровни, чтобы их таймеры успели попасть в младшие корзины
+    private void cascade() {
+        int top = 0;
+        while (top + 1 < LEVELS
+                && (currentTick & ((1L << (WHEEL_BITS * (top + 1))) - 1)) == 0) {
+            top++;
+        }
+        for (int level = top; level >= 1; level--) {
+            int index = (int) ((currentTick >>> (WHEEL_BITS * level)) & WHEEL_MASK);
+            ExpiryTimer timer = buckets[level][index];
+            buckets[level][index] = null;
+            while (timer != null) {
+                ExpiryTimer next = timer.wheelNext;
+                timer.wheelNext = null;
+                if (!timer.isCancelled()) {
+                    place(timer, currentTick);
+                }
+                timer = next;
+            }
+        }
+    }
+
+    private void place(ExpiryTimer timer, long minTick) {
+        long tick = Math.max(tickOf(timer), minTick);
+        long delta = Math.min(tick - currentTick, MAX_DELTA);
+        tick = currentTick + delta;
+        int level = 0;
+        while (level < LEVELS - 1 && delta >= 1L << (WHEEL_BITS * (level + 1))) {
+            level++;
+        }
+        int index = (int) ((tick >>> (WHEEL_BITS * level)) & WHEEL_MASK);
+        timer.wheelNext = buckets[level][index];
+        buckets[level][index] = timer;
+    }
+
+    private long tickOf(ExpiryTimer timer) {
+        return Math.ceilDiv(timer.expiryTime, tickMs);
+    }
+}
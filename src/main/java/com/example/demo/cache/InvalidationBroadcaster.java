@@ -0,0 +1,140 @@
+package com.example.demo.cache;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Связывает кеши фабрики с {@link InvalidationBus}. Локальные инвалидации копятся
+ * по кешу и раз в batchMillis уходят одним сообщением на кеш: повторные ключи и теги
+ * схлопываются, а очистка поглощает всё остальное. Чужие сообщения применяются
+ * к исходным кешам узла, минуя обёртку, поэтому обратно не рассылаются.
+ * Инвалидации внутри транзакции ставятся в очередь только после её коммита: иначе другой
+ * узел успел бы перечитать из БД ещё не изменённые строки.
+ */
+@Slf4j
+final class InvalidationBroadcaster {
+    private final String origin = UUID.randomUUID().toString();
+    private final InvalidationBus bus;
+    private final Map<String, TaggedCache<?, ?>> caches = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, InvalidationMessage> pending =
+            new ConcurrentHashMap<>();
+    private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("cache-invalidation-flush").daemon().factory());
+
+    InvalidationBroadcaster(InvalidationBus bus, long batchMillis) {
+        this.bus = bus;
+        bus.subscribe(this::apply);
+        flusher.scheduleWithFixedDelay(this::flush, batchMillis, batchMillis,
+                TimeUnit.MILLISECONDS);
+    }
+
+    <K, V> TaggedCache<K, V> register(TaggedCache<K, V> cache) {
+        caches.put(cache.getCacheName(), cache);
+        return new BroadcastingTaggedCache<>(cache, this);
+    }
+
+    // Ключ неизвестного получателю типа не восстановить, поэтому он становится очисткой
+    void keyRemoved(String cacheName, Object key) {
+        String encoded = encodeKey(key);
+        enqueue(encoded == null ? InvalidationMessage.cleared(origin, cacheName)
+                : new InvalidationMessage(origin, cacheName, Set.of(encoded), Set.of(), null,
+                        false));
+    }
+
+    void tagsInvalidated(String cacheName, Collection<String> tags) {
+        enqueue(new InvalidationMessage(origin, cacheName, Set.of(), Set.copyOf(tags), null,
+                false));
+    }
+
+    void keysInvalidatedUpTo(String cacheName, double bound) {
+        enqueue(new InvalidationMessage(origin, cacheName, Set.of(), Set.of(), bound, false));
+    }
+
+    void cleared(String cacheName) {
+        enqueue(InvalidationMessage.cleared(origin, cacheName));
+    }
+
+    // afterCompletion, а не afterCommit: синхронизации, зарегистрированные из afterCommit
+    // (сквозные записи после коммита), Spring вызывает уже только на этом этапе
+    private void enqueue(InvalidationMessage message) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            pending.merge(message.cacheName(), message, InvalidationMessage::merge);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    pending.merge(message.cacheName(), message, InvalidationMessage::merge);
+                }
+            }
+        });
+    }
+
+    void flush() {
+        for (String cacheName : pending.keySet()) {
+            InvalidationMessage message = pending.remove(cacheName);
+            if (message == null) {
+                continue;
+            }
+            try {
+                bus.publish(message);
+            } catch (RuntimeException e) {
+                log.warn("Failed to broadcast invalidation of cache '{}'", cacheName, e);
+            }
+        }
+    }
+
+    private void apply(InvalidationMessage message) {
+        if (origin.equals(message.origin())) {
+            return;
+        }
+        @SuppressWarnings("unchecked")
+        TaggedCache<Object, ?> cache = (TaggedCache<Object, ?>) caches.get(message.cacheName());
+        if (cache == null) {
+            return;
+        }
+        if (message.clear()) {
+            cache.clear();
+            return;
+        }
+        for (String key : message.keys()) {
+            cache.remove(decodeKey(key));
+        }
+        if (message.keysUpTo() != null) {
+            cache.invalidateKeysUpTo(message.keysUpTo());
+        }
+        if (!message.tags().isEmpty()) {
+            cache.invalidateTags(message.tags());
+        }
+    }
+
+    // Ключи кешей приложения — ID (Long) и строки; префикс сохраняет тип для получателя
+    private static String encodeKey(Object key) {
+        return switch (key) {
+            case Long id -> "L:" + id;
+            case String name -> "S:" + name;
+            default -> null;
+        };
+    }
+
+    private static Object decodeKey(String key) {
+        String value = key.substring(2);
+        return key.startsWith("L:") ? Long.valueOf(value) : value;
+    }
+
+    // Шину закрывает её владелец; здесь только досылается последний пакет
+    void close() {
+        flusher.shutdownNow();
+        flush();
+    }
+}
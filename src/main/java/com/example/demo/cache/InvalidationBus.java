@@ -0,0 +1,17 @@
+package com.example.demo.cache;
+
+import java.util.function.Consumer;
+
+/**
+ * Транспорт инвалидаций между узлами. Доставка «не более одного раза» и без порядка
+ * между узлами: пропущенное сообщение ограничено TTL записи, как и без шины.
+ * Подписчик получает и собственные сообщения узла, отсеивать их по origin — его забота.
+ */
+public interface InvalidationBus {
+
+    void publish(InvalidationMessage message);
+
+    void subscribe(Consumer<InvalidationMessage> listener);
+
+    void close();
+}
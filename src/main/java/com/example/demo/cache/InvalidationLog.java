@@ -0,0 +1,70 @@
+package com.example.demo.cache;
+
+import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Номера последних инвалидаций по ключам и тегам. Загрузка запоминает {@link #epoch()} до
+ * обращения к источнику, а перед записью в кеш {@link #isStale} сверяет его только с её ключом
+ * и тегами: инвалидация чужих ключей и тегов не отбрасывает загруженное значение.
+ * Чтобы журнал не рос без предела, при переполнении старые номера сворачиваются в общую
+ * границу; загрузки, начатые до неё, отбрасываются целиком, как после {@link #invalidateAll()}.
+ */
+final class InvalidationLog {
+    // Столько ключей или тегов хранится, прежде чем старые номера свернутся в границу
+    private static final int MAX_TRACKED = 1024;
+
+    private final AtomicLong sequence = new AtomicLong();
+    // Загрузки, начатые до этого номера, устарели независимо от ключа и тегов
+    private final AtomicLong horizon = new AtomicLong();
+    private final ConcurrentHashMap<Object, Long> keys = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Long> tags = new ConcurrentHashMap<>();
+
+    long epoch() {
+        return sequence.get();
+    }
+
+    // Вызывается до удаления записей, чтобы повторная проверка после вставки их увидела
+    void invalidateKey(Object key) {
+        record(keys, key, sequence.incrementAndGet());
+    }
+
+    void invalidateTags(Collection<String> invalidated) {
+        long number = sequence.incrementAndGet();
+        for (String tag : invalidated) {
+            record(tags, tag, number);
+        }
+    }
+
+    void invalidateAll() {
+        horizon.accumulateAndGet(sequence.incrementAndGet(), Math::max);
+    }
+
+    boolean isStale(long epoch, Object key, Set<String> valueTags) {
+        if (isAfter(keys.get(key), epoch)) {
+            return true;
+        }
+        for (String tag : valueTags) {
+            if (isAfter(tags.get(tag), epoch)) {
+                return true;
+            }
+        }
+        // Граница читается последней: свёртка сначала поднимает её, потом чистит журнал
+        return horizon.get() > epoch;
+    }
+
+    private static boolean isAfter(Long number, long epoch) {
+        return number != null && number > epoch;
+    }
+
+    private <T> void record(ConcurrentHashMap<T, Long> log, T name, long number) {
+        log.merge(name, number, Math::max);
+        if (log.size() > MAX_TRACKED) {
+            long floor = sequence.get();
+            horizon.accumulateAndGet(floor, Math::max);
+            log.values().removeIf(recorded -> recorded <= floor);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.demo.cache;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Инвалидации одного кеша на узле-отправителе за окно пакета. Ключи передаются строками
+ * с типом (см. {@link InvalidationBroadcaster}), чтобы получатель удалил их по ключу.
+ * {@code keysUpTo} — граница числовых ключей, null — диапазона нет.
+ * {@code clear} поглощает всё остальное: после очистки кеша оно уже не нужно.
+ */
+public record InvalidationMessage(
+        String origin,
+        String cacheName,
+        Set<String> keys,
+        Set<String> tags,
+        Double keysUpTo,
+        boolean clear) {
+
+    public InvalidationMessage {
+        keys = clear || keys == null ? Set.of() : Set.copyOf(keys);
+        tags = clear || tags == null ? Set.of() : Set.copyOf(tags);
+        keysUpTo = clear ? null : keysUpTo;
+    }
+
+    public static InvalidationMessage cleared(String origin, String cacheName) {
+        return new InvalidationMessage(origin, cacheName, Set.of(), Set.of(), null, true);
+    }
+
+    // Большая граница покрывает меньшую: подряд идущие ставки дают одно сообщение
+    InvalidationMessage merge(InvalidationMessage other) {
+        if (clear || other.clear) {
+            return cleared(origin, cacheName);
+        }
+        Set<String> mergedKeys = new HashSet<>(keys);
+        mergedKeys.addAll(other.keys);
+        Set<String> mergedTags = new HashSet<>(tags);
+        mergedTags.addAll(other.tags);
+        Double mergedUpTo = keysUpTo;
+        if (mergedUpTo == null || other.keysUpTo != null && other.keysUpTo > mergedUpTo) {
+            mergedUpTo = other.keysUpTo;
+        }
+        return new InvalidationMessage(origin, cacheName, mergedKeys, mergedTags, mergedUpTo,
+                false);
+    }
+}
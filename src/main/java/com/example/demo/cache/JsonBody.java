@@ -0,0 +1,46 @@
+package com.example.demo.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Готовое тело JSON-ответа: байты UTF-8 и, для достаточно больших ответов, их gzip-версия.
+ * Попадание в кеш таких тел отдаёт байты клиенту без маппинга в DTO и без Jackson.
+ * Массивы не копируются и не должны изменяться после создания.
+ */
+public record JsonBody(byte[] json, byte[] gzip) {
+
+    // Меньшие ответы почти не сжимаются, а заголовки gzip съедают выигрыш
+    private static final int GZIP_MIN_BYTES = 1024;
+
+    public static JsonBody serialize(ObjectMapper mapper, Object value) {
+        try {
+            return of(mapper.writeValueAsBytes(value));
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public static JsonBody of(byte[] json) {
+        return new JsonBody(json, json.length >= GZIP_MIN_BYTES ? gzip(json) : null);
+    }
+
+    private static byte[] gzip(byte[] json) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(json.length / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    // Вес для кеша с бюджетом в байтах
+    public int weight() {
+        return json.length + (gzip != null ? gzip.length : 0);
+    }
+}
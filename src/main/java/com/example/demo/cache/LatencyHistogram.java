@@ -0,0 +1,65 @@
+package com.example.demo.cache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Гистограмма задержек с корзинами по степеням двойки в микросекундах:
+ * корзина i считает значения меньше 2^i мкс. Запись — один {@link LongAdder#increment()}.
+ */
+public final class LatencyHistogram {
+    private static final int BUCKETS = 32;
+
+    private final LongAdder[] counts = new LongAdder[BUCKETS];
+
+    public LatencyHistogram() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = new LongAdder();
+        }
+    }
+
+    public void record(long nanos) {
+        long micros = Math.max(0, nanos / 1_000);
+        int bucket = Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(micros));
+        counts[bucket].increment();
+    }
+
+    // Верхняя граница корзины, в которую попадает квантиль q, в миллисекундах
+    public double percentileMillis(double q) {
+        long[] snapshot = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts[i].sum();
+            total += snapshot[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(q * total);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return upperBoundMicros(i) / 1_000.0;
+            }
+        }
+        return upperBoundMicros(BUCKETS - 1) / 1_000.0;
+    }
+
+    // Непустые корзины: "<N мкс" -> количество; счётчики монотонны и суммируются между узлами
+    public Map<String, Long> buckets() {
+        Map<String, Long> result = new LinkedHashMap<>();
+        for (int i = 0; i < BUCKETS; i++) {
+            long count = counts[i].sum();
+            if (count > 0) {
+                result.put("<" + upperBoundMicros(i) + "us", count);
+            }
+        }
+        return result;
+    }
+
+    private static long upperBoundMicros(int bucket) {
+        return 1L << bucket;
+    }
+}
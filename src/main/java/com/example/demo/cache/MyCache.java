@@ -1,12 +1,27 @@
 package com.example.demo.cache;
 
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.TimeUnit;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Function;
+import java.util.function.Predicate;
 import java.util.function.Supplier;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.config.BeanDefinition;
@@ -16,18 +31,50 @@ import org.springframework.stereotype.Component;
 @Slf4j
 @Component
 @Scope(BeanDefinition.SCOPE_PROTOTYPE)
-public class MyCache<K, V> {
+public class MyCache<K, V> implements TaggedCache<K, V> {
+    private static final int MAX_SEGMENTS = 16;
+    private static final int MIN_SEGMENT_CAPACITY = 16;
+
     private final String cacheName;
-    private final int maxSize;
+    private final long maxWeight;
     private final long defaultTimeout;
-    private final Map<K, CacheEntry<V>> cache;
-    private final ScheduledExecutorService scheduler;
+    private final Weigher<? super K, ? super V> weigher;
+    private final CacheSegment<K, V>[] segments;
+    private final int segmentMask;
+    private final CacheExpiryService expiryService;
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    // Тег -> записи, которые от него зависят
+    private final ConcurrentHashMap<String, Set<CacheSegment.Node<K, V>>> tagIndex =
+            new ConcurrentHashMap<>();
+    private final InvalidationLog invalidations = new InvalidationLog();
+    private final CacheStats stats = new CacheStats();
+    private final List<RemovalListener<K, V>> removalListeners = new CopyOnWriteArrayList<>();
+    private volatile boolean closed;
+    // Окно перед истечением TTL, в котором чтение запускает фоновую перезагрузку
+    private volatile long refreshAheadMillis;
+    private volatile Executor refreshExecutor;
+    // Сколько после истечения TTL запись ещё отдаётся, если загрузчик падает
+    private volatile long staleIfErrorMillis;
+    private volatile FrequencySketch admission;
+    // Сюда попадают записи, вытесненные из heap по размеру
+    private volatile OffHeapTier<K, V> offHeap;
+    // TTL по частоте чтений и инвалидаций ключа; без него у всех записей defaultTimeout
+    private volatile AdaptiveTtl adaptiveTtl;
 
-    private record CacheEntry<V>(V value, long expiryTime) {
+    // Без службы истечения просроченные записи удаляются только при чтении и вытеснении
+    public MyCache(String cacheName, int maxSize, long defaultTimeout) {
+        this(cacheName, maxSize, defaultTimeout, null);
     }
 
-    public MyCache(String cacheName, int maxSize, long defaultTimeout) {
-        if (maxSize <= 0) {
+    public MyCache(String cacheName, int maxSize, long defaultTimeout,
+                   CacheExpiryService expiryService) {
+        this(cacheName, maxSize, defaultTimeout, Weigher.singleton(), expiryService);
+    }
+
+    // Ограничение по суммарному весу записей вместо их количества
+    public MyCache(String cacheName, long maxWeight, long defaultTimeout,
+                   Weigher<? super K, ? super V> weigher, CacheExpiryService expiryService) {
+        if (maxWeight <= 0) {
             throw new IllegalArgumentException("Cache size must be greater than 0");
         }
         if (defaultTimeout < 10_000) {
@@ -35,80 +82,614 @@ public class MyCache<K, V> {
         }
 
         this.cacheName = cacheName;
-        this.maxSize = maxSize;
+        this.maxWeight = maxWeight;
         this.defaultTimeout = defaultTimeout;
-        this.cache = Collections.synchronizedMap(new LinkedHashMap<>(this.maxSize, 0.75f, true) {
-            @Override
-            protected boolean removeEldestEntry(Map.Entry<K, CacheEntry<V>> eldest) {
-                return size() > maxSize;
-            }
-        });
-
-        this.scheduler = Executors.newSingleThreadScheduledExecutor();
-        startCleanupTask();
+        this.weigher = weigher;
+        this.segments = createSegments(maxWeight);
+        this.segmentMask = segments.length - 1;
+        this.expiryService = expiryService;
     }
 
 
-    private void startCleanupTask() {
-        scheduler.scheduleAtFixedRate(() -> {
-            long now = System.currentTimeMillis();
-            cache.entrySet().removeIf(entry -> entry.getValue().expiryTime < now);
-        }, defaultTimeout / 6, defaultTimeout / 6, TimeUnit.MILLISECONDS);
+    // Бюджет делится между сегментами так, что в сумме не превышает maxWeight.
+    // Запись тяжелее бюджета одного сегмента в кеш не попадает.
+    @SuppressWarnings("unchecked")
+    private CacheSegment<K, V>[] createSegments(long maxWeight) {
+        int count = (int) Math.min(MAX_SEGMENTS,
+                Long.highestOneBit(Math.max(1, maxWeight / MIN_SEGMENT_CAPACITY)));
+        CacheSegment<K, V>[] result = new CacheSegment[count];
+        for (int i = 0; i < count; i++) {
+            long capacity = maxWeight / count + (i < maxWeight % count ? 1 : 0);
+            result[i] = new CacheSegment<>(capacity, (int) Math.min(capacity, 1024),
+                    this::onRemoval);
+        }
+        return result;
     }
 
+    private CacheSegment<K, V> segmentFor(Object key) {
+        int h = key.hashCode();
+        return segments[(h ^ (h >>> 16)) & segmentMask];
+    }
 
+    @Override
     public void put(K key, V value) {
-        put(key, value, defaultTimeout);
+        put(key, value, timeoutFor(key));
     }
 
 
     public void put(K key, V value, long timeout) {
-        long expiryTime = System.currentTimeMillis() + timeout;
-        cache.put(key, new CacheEntry<>(value, expiryTime));
-        log.info("In Cache '{}' put value '{}' | for key: '{}'",
-                cacheName, value, key);
+        put(key, value, timeout, Set.of());
+    }
+
+
+    @Override
+    public void put(K key, V value, Collection<String> tags) {
+        put(key, value, timeoutFor(key), tags);
+    }
+
+
+    public void put(K key, V value, long timeout, Collection<String> tags) {
+        store(key, value, timeout, Set.copyOf(tags), invalidations.epoch());
+    }
+
+
+    // Перезагрузка работает только через get с загрузчиком и getIfFresh:
+    // сам кеш загрузчиков не хранит
+    public void setRefreshAhead(long windowMillis, Executor executor) {
+        if (windowMillis < 0 || windowMillis >= defaultTimeout) {
+            throw new IllegalArgumentException("Refresh window must be in [0, timeout)");
+        }
+        this.refreshExecutor = executor;
+        this.refreshAheadMillis = windowMillis;
     }
 
+    // Действует на записи, сохранённые после вызова
+    public void setStaleIfError(long graceMillis) {
+        if (graceMillis < 0) {
+            throw new IllegalArgumentException("Stale grace period must not be negative");
+        }
+        this.staleIfErrorMillis = graceMillis;
+    }
+
+    // Защита от вымывания горячих записей разовыми проходами по ключам (TinyLFU)
+    public void enableAdmissionFilter(int expectedEntries) {
+        FrequencySketch sketch = new FrequencySketch(expectedEntries);
+        this.admission = sketch;
+        for (CacheSegment<K, V> segment : segments) {
+            segment.setAdmission(sketch);
+        }
+    }
+
+    // Вытесненные записи сериализуются в direct-буфер и возвращаются в heap при чтении
+    public void enableOffHeapTier(long capacityBytes, ValueCodec<V> codec) {
+        this.offHeap = new OffHeapTier<>(capacityBytes, codec);
+    }
+
+    // Действует на записи, сохранённые после вызова; явный timeout в put по-прежнему главнее
+    public void enableAdaptiveTtl(long minMillis, long maxMillis, int expectedEntries) {
+        if (minMillis <= refreshAheadMillis) {
+            throw new IllegalArgumentException("Minimum TTL must exceed the refresh window");
+        }
+        this.adaptiveTtl = new AdaptiveTtl(defaultTimeout, minMillis, maxMillis,
+                expectedEntries);
+    }
 
+    private long timeoutFor(K key) {
+        AdaptiveTtl ttl = adaptiveTtl;
+        return ttl != null ? ttl.timeoutFor(key) : defaultTimeout;
+    }
+
+    private void recordAccess(K key) {
+        FrequencySketch sketch = admission;
+        if (sketch != null) {
+            sketch.increment(key);
+        }
+        AdaptiveTtl ttl = adaptiveTtl;
+        if (ttl != null) {
+            ttl.recordRead(key);
+        }
+    }
+
+    // Устаревшая запись без загрузчика считается промахом
+    @Override
     public V get(K key) {
-        CacheEntry<V> entry = cache.get(key);
-        if (entry != null && entry.expiryTime >= System.currentTimeMillis()) {
-            log.info("Cache '{}' hit for key: '{}'", cacheName, key);
-            return entry.value;
+        recordAccess(key);
+        long now = System.currentTimeMillis();
+        CacheSegment.Node<K, V> node = segmentFor(key).getNode(key, now);
+        if (node != null && now <= node.freshUntil) {
+            stats.recordHit();
+            return node.value;
+        }
+        V promoted = node == null ? promote(key, now) : null;
+        if (promoted != null) {
+            stats.recordHit();
+            return promoted;
         }
-        cache.remove(key);
-        log.info("Cache '{}' already haven't got key: '{}'", cacheName, key);
+        stats.recordMiss();
         return null;
     }
 
 
+    @Override
     public V get(K key, Supplier<V> valueLoader) {
-        V value = this.get(key);
+        return get(key, valueLoader, value -> Set.of());
+    }
+
 
-        if (value != null) {
+    // tagger сообщает, от каких сущностей зависит загруженное значение
+    @Override
+    public V get(K key, Supplier<V> valueLoader,
+                 Function<? super V, ? extends Collection<String>> tagger) {
+        recordAccess(key);
+        long now = System.currentTimeMillis();
+        CacheSegment.Node<K, V> node = segmentFor(key).getNode(key, now);
+
+        if (node != null && now <= node.freshUntil) {
+            stats.recordHit();
+            if (refreshExecutor != null && now >= node.freshUntil - refreshAheadMillis) {
+                refresh(key, valueLoader, tagger, node.value);
+            }
+            return node.value;
+        }
+        V promoted = node == null ? promote(key, now) : null;
+        if (promoted != null) {
+            stats.recordHit();
+            return promoted;
+        }
+        stats.recordMiss();
+
+        try {
+            return load(key, valueLoader, tagger);
+        } catch (RuntimeException e) {
+            // node здесь может быть только устаревшим, но ещё не вытесненным
+            if (node == null) {
+                throw e;
+            }
+            log.warn("Serving stale value of cache '{}' after load failure", cacheName, e);
+            stats.recordStaleHit();
+            return node.value;
+        }
+    }
+
+    @Override
+    public V getIfFresh(K key, Supplier<V> valueLoader,
+                        Function<? super V, ? extends Collection<String>> tagger) {
+        recordAccess(key);
+        long now = System.currentTimeMillis();
+        CacheSegment.Node<K, V> node = segmentFor(key).getNode(key, now);
+        if (node != null && now <= node.freshUntil) {
+            stats.recordHit();
+            if (refreshExecutor != null && now >= node.freshUntil - refreshAheadMillis) {
+                refresh(key, valueLoader, tagger, node.value);
+            }
+            return node.value;
+        }
+        V promoted = node == null ? promote(key, now) : null;
+        if (promoted != null) {
+            stats.recordHit();
+            return promoted;
+        }
+        stats.recordMiss();
+        return null;
+    }
+
+    // Пакетная загрузка не объединяется с одиночными загрузчиками тех же ключей
+    // и не запускает refresh-ahead: у попаданий нет своего загрузчика
+    @Override
+    public Map<K, V> getAll(Collection<? extends K> keys, Function<Set<K>, Map<K, V>> batchLoader,
+                            Function<? super V, ? extends Collection<String>> tagger) {
+        long now = System.currentTimeMillis();
+        Map<K, V> found = new HashMap<>();
+        Set<K> missing = new LinkedHashSet<>();
+        for (K key : keys) {
+            if (found.containsKey(key) || missing.contains(key)) {
+                continue;
+            }
+            recordAccess(key);
+            CacheSegment.Node<K, V> node = segmentFor(key).getNode(key, now);
+            V value = node != null && now <= node.freshUntil ? node.value
+                    : node == null ? promote(key, now) : null;
+            if (value != null) {
+                stats.recordHit();
+                found.put(key, value);
+            } else {
+                stats.recordMiss();
+                missing.add(key);
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            long epoch = invalidations.epoch();
+            long start = System.nanoTime();
+            Map<K, V> loaded;
+            try {
+                loaded = batchLoader.apply(Collections.unmodifiableSet(missing));
+                stats.recordLoadSuccess(System.nanoTime() - start);
+            } catch (RuntimeException | Error e) {
+                stats.recordLoadFailure(System.nanoTime() - start);
+                throw e;
+            }
+            for (K key : missing) {
+                V value = loaded.get(key);
+                if (value != null) {
+                    store(key, value, timeoutFor(key), Set.copyOf(tagger.apply(value)), epoch);
+                    found.put(key, value);
+                }
+            }
+        }
+
+        Map<K, V> result = new LinkedHashMap<>();
+        for (K key : keys) {
+            V value = found.get(key);
+            if (value != null) {
+                result.put(key, value);
+            }
+        }
+        return result;
+    }
+
+    // Запись из уровня вне кучи возвращается в heap с оставшимся TTL и прежними тегами
+    private V promote(K key, long now) {
+        OffHeapTier<K, V> tier = offHeap;
+        if (tier == null) {
+            return null;
+        }
+        long epoch = invalidations.epoch();
+        OffHeapTier.Entry<V> entry = tier.take(key, now);
+        if (entry == null) {
+            return null;
+        }
+        store(key, entry.value(), entry.freshUntil() - now, entry.tags(), epoch);
+        return entry.value();
+    }
+
+    private V load(K key, Supplier<V> valueLoader,
+                   Function<? super V, ? extends Collection<String>> tagger) {
+        // Один загрузчик на ключ, остальные ждут его результат
+        CompletableFuture<V> load = new CompletableFuture<>();
+        CompletableFuture<V> running = inFlight.putIfAbsent(key, load);
+        if (running != null) {
+            stats.recordDeduplicatedLoad();
+            return await(running);
+        }
+        return runLoad(key, valueLoader, tagger, load, invalidations.epoch());
+    }
+
+    // Старое значение продолжает отдаваться, пока перезагрузка не завершится
+    private void refresh(K key, Supplier<V> valueLoader,
+                         Function<? super V, ? extends Collection<String>> tagger,
+                         V currentValue) {
+        CompletableFuture<V> load = new CompletableFuture<>();
+        if (inFlight.putIfAbsent(key, load) != null) {
+            return;
+        }
+        long epoch = invalidations.epoch();
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    runLoad(key, valueLoader, tagger, load, epoch);
+                } catch (RuntimeException e) {
+                    log.warn("Refresh of cache '{}' failed", cacheName, e);
+                }
+            });
+            stats.recordRefresh();
+        } catch (RejectedExecutionException e) {
+            // Пул перегружен — значение перезагрузит следующий промах
+            inFlight.remove(key, load);
+            load.complete(currentValue);
+        }
+    }
+
+    private V runLoad(K key, Supplier<V> valueLoader,
+                      Function<? super V, ? extends Collection<String>> tagger,
+                      CompletableFuture<V> load, long epoch) {
+        long start = System.nanoTime();
+        try {
+            V value = valueLoader.get();
+            stats.recordLoadSuccess(System.nanoTime() - start);
+            if (value != null) {
+                store(key, value, timeoutFor(key), Set.copyOf(tagger.apply(value)), epoch);
+            }
+            load.complete(value);
             return value;
+        } catch (RuntimeException | Error e) {
+            stats.recordLoadFailure(System.nanoTime() - start);
+            load.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, load);
         }
+    }
 
-        value = valueLoader.get();
+    private static <V> V await(CompletableFuture<V> load) {
+        try {
+            return load.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
 
-        if (value != null) {
-            this.put(key, value);  // Сохраняем в кеш
+    private void store(K key, V value, long timeout, Set<String> tags, long epoch) {
+        // Значение, загруженное до инвалидации его ключа или тегов, могло устареть
+        if (closed || invalidations.isStale(epoch, key, tags)) {
+            return;
+        }
+        recordAccess(key);
+        int weight = weigher.weigh(key, value);
+        if (weight < 0) {
+            throw new IllegalArgumentException("Weight must not be negative: " + weight);
+        }
+        stats.recordTtl(timeout);
+        long freshUntil = System.currentTimeMillis() + timeout;
+        long expiryTime = freshUntil + staleIfErrorMillis;
+        CacheSegment<K, V> segment = segmentFor(key);
+        // Старая копия вне кучи больше не нужна; отклонённая сегментом запись попадёт туда снова
+        OffHeapTier<K, V> tier = offHeap;
+        if (tier != null) {
+            tier.remove(key);
+        }
+        CacheSegment.Node<K, V> node =
+                segment.put(key, value, freshUntil, expiryTime, tags, weight);
+        if (node.removed) {
+            // Слишком тяжёлая запись отклонена сегментом
+            return;
         }
+        if (expiryService != null) {
+            expiryService.schedule(node);
+        }
+        if (!tags.isEmpty()) {
+            for (String tag : tags) {
+                tagIndex.compute(tag, (t, nodes) -> {
+                    Set<CacheSegment.Node<K, V>> result =
+                            nodes != null ? nodes : ConcurrentHashMap.newKeySet();
+                    result.add(node);
+                    return result;
+                });
+            }
+        }
+        // Узел могли вытеснить до того, как он попал в индекс, а инвалидация (по ключу,
+        // тегу, clear или invalidateIf) между проверкой эпохи и segment.put его не увидела
+        if (node.removed) {
+            unindex(node);
+        } else if (invalidations.isStale(epoch, key, tags)) {
+            segment.removeNode(node, RemovalCause.INVALIDATED);
+        }
+    }
 
-        return value;
+    private void onRemoval(CacheSegment.Node<K, V> node, RemovalCause cause) {
+        stats.recordRemoval(cause);
+        unindex(node);
+        AdaptiveTtl ttl = adaptiveTtl;
+        if (ttl != null && cause == RemovalCause.INVALIDATED) {
+            ttl.recordInvalidation(node.key);
+        }
+        boolean spilled = false;
+        if (cause == RemovalCause.SIZE || cause == RemovalCause.REJECTED) {
+            spilled = spill(node);
+        }
+        // Слушатели узнают только о записях, которые кеш больше не отдаёт: отклонённой
+        // записи в нём не было, а перенесённую вне кучи вернёт get. Из уровня вне кучи
+        // записи уходят без уведомления
+        if (cause == RemovalCause.REJECTED || spilled || removalListeners.isEmpty()) {
+            return;
+        }
+        // Слушатели вызываются вне лока сегмента, чтобы не тормозить запись
+        ForkJoinPool.commonPool().execute(() -> notifyListeners(node, cause));
     }
 
+    // Вызывается под локом сегмента, поэтому сериализация идёт в вытесняющем потоке
+    private boolean spill(CacheSegment.Node<K, V> node) {
+        OffHeapTier<K, V> tier = offHeap;
+        if (tier == null || closed || System.currentTimeMillis() > node.freshUntil) {
+            return false;
+        }
+        try {
+            return tier.put(node.key, node.value, node.freshUntil, node.tags);
+        } catch (RuntimeException e) {
+            log.warn("Failed to spill entry of cache '{}' off heap", cacheName, e);
+            return false;
+        }
+    }
+
+    private void notifyListeners(CacheSegment.Node<K, V> node, RemovalCause cause) {
+        for (RemovalListener<K, V> listener : removalListeners) {
+            try {
+                listener.onRemoval(node.key, node.value, cause);
+            } catch (RuntimeException e) {
+                log.warn("Removal listener of cache '{}' failed", cacheName, e);
+            }
+        }
+    }
+
+    private void unindex(CacheSegment.Node<K, V> node) {
+        for (String tag : node.tags) {
+            tagIndex.computeIfPresent(tag, (t, nodes) -> {
+                nodes.remove(node);
+                return nodes.isEmpty() ? null : nodes;
+            });
+        }
+    }
 
+
+    @Override
     public void remove(K key) {
-        cache.remove(key);
+        invalidations.invalidateKey(key);
+        AdaptiveTtl ttl = adaptiveTtl;
+        if (ttl != null) {
+            ttl.recordInvalidation(key);
+        }
+        inFlight.remove(key);
+        segmentFor(key).remove(key);
+        OffHeapTier<K, V> tier = offHeap;
+        if (tier != null) {
+            tier.remove(key);
+        }
+    }
+
+
+    @Override
+    public void invalidateTag(String tag) {
+        invalidateTags(Set.of(tag));
+    }
+
+
+    @Override
+    public void invalidateTags(Collection<String> tags) {
+        invalidations.invalidateTags(tags);
+        for (String tag : tags) {
+            Set<CacheSegment.Node<K, V>> nodes = tagIndex.remove(tag);
+            if (nodes != null) {
+                for (CacheSegment.Node<K, V> node : nodes) {
+                    segmentFor(node.key).removeNode(node, RemovalCause.INVALIDATED);
+                }
+            }
+        }
+        // После heap: запись, вытесненная во время обхода, успеет попасть в уровень
+        OffHeapTier<K, V> tier = offHeap;
+        if (tier != null) {
+            tier.invalidateTags(tags);
+        }
+    }
+
+
+    @Override
+    public void invalidateIf(Predicate<? super K> keyFilter) {
+        invalidations.invalidateAll();
+        inFlight.keySet().removeIf(keyFilter);
+        for (CacheSegment<K, V> segment : segments) {
+            segment.removeIf(node -> keyFilter.test(node.key), RemovalCause.INVALIDATED);
+        }
+        OffHeapTier<K, V> tier = offHeap;
+        if (tier != null) {
+            tier.removeIf(keyFilter);
+        }
     }
 
 
+    @Override
     public void clear() {
-        cache.clear();
+        invalidations.invalidateAll();
+        inFlight.clear();
+        for (CacheSegment<K, V> segment : segments) {
+            segment.clear();
+        }
+        OffHeapTier<K, V> tier = offHeap;
+        if (tier != null) {
+            tier.clear();
+        }
     }
 
+    @Override
     public int size() {
-        return cache.size();
+        int size = 0;
+        for (CacheSegment<K, V> segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    // Самые востребованные записи (по sketch допуска, без него — с наибольшим остатком TTL)
+    public int saveSnapshot(Path file, int maxEntries, ValueCodec<K> keyCodec,
+                            ValueCodec<V> valueCodec) throws IOException {
+        long now = System.currentTimeMillis();
+        FrequencySketch sketch = admission;
+        Comparator<CacheSegment.Node<K, V>> hottest =
+                Comparator.comparingLong(node -> node.freshUntil);
+        if (sketch != null) {
+            hottest = Comparator.<CacheSegment.Node<K, V>>comparingInt(
+                    node -> sketch.frequency(node.key)).thenComparing(hottest);
+        }
+        List<CacheSegment.Node<K, V>> nodes = new ArrayList<>();
+        for (CacheSegment<K, V> segment : segments) {
+            for (CacheSegment.Node<K, V> node : segment.nodes()) {
+                if (now <= node.freshUntil) {
+                    nodes.add(node);
+                }
+            }
+        }
+        List<CacheSnapshot.Entry<K, V>> entries = nodes.stream()
+                .sorted(hottest.reversed())
+                .limit(maxEntries)
+                .map(node -> new CacheSnapshot.Entry<>(node.key, node.value, node.freshUntil,
+                        node.tags))
+                .toList();
+        CacheSnapshot.write(file, entries, keyCodec, valueCodec);
+        return entries.size();
+    }
+
+    // Восстановленные записи попадают в окно refresh-ahead: первое чтение отдаёт их
+    // и сверяет с БД в фоне, так что снимок не живёт дольше одного окна без проверки
+    public int loadSnapshot(Path file, ValueCodec<K> keyCodec,
+                            ValueCodec<V> valueCodec) throws IOException {
+        long now = System.currentTimeMillis();
+        long epoch = invalidations.epoch();
+        int loaded = 0;
+        for (CacheSnapshot.Entry<K, V> entry : CacheSnapshot.read(file, keyCodec, valueCodec)) {
+            long remaining = entry.freshUntil() - now;
+            if (remaining <= 0) {
+                continue;
+            }
+            if (refreshExecutor != null && refreshAheadMillis > 0) {
+                remaining = Math.min(remaining, refreshAheadMillis);
+            }
+            store(entry.key(), entry.value(), remaining, entry.tags(), epoch);
+            loaded++;
+        }
+        return loaded;
+    }
+
+    // Для кеша без Weigher совпадает с size()
+    @Override
+    public long weightedSize() {
+        long weightedSize = 0;
+        for (CacheSegment<K, V> segment : segments) {
+            weightedSize += segment.weightedSize();
+        }
+        return weightedSize;
+    }
+
+    // Таймеры закрытого кеша отменяются вместе с удалёнными записями
+    @Override
+    public void close() {
+        closed = true;
+        clear();
+    }
+
+    @Override
+    public void addRemovalListener(RemovalListener<K, V> listener) {
+        removalListeners.add(listener);
+    }
+
+    @Override
+    public String getCacheName() {
+        return cacheName;
+    }
+
+    @Override
+    public CacheStatsSnapshot getStats() {
+        List<CacheTierStats> tiers = new ArrayList<>(2);
+        OffHeapTier<K, V> tier = offHeap;
+        CacheTierStats offHeapStats = tier != null ? tier.stats() : null;
+        long offHeapHits = offHeapStats != null ? offHeapStats.hits() : 0;
+        tiers.add(new CacheTierStats("heap", size(), weightedSize(), maxWeight,
+                stats.getHits() - offHeapHits));
+        if (offHeapStats != null) {
+            tiers.add(offHeapStats);
+        }
+        return stats.snapshot(cacheName, size(), weightedSize(), maxWeight, tiers);
+    }
+
+    public long getDeduplicatedLoads() {
+        return stats.getDeduplicatedLoads();
+    }
+
+    public long getExpiredEntries() {
+        return stats.getRemovals(RemovalCause.EXPIRED);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,212 @@
+package com.example.demo.cache;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+
+/**
+ * Второй уровень {@link MyCache}: записи, вытесненные из heap по размеру, хранятся
+ * сериализованными в direct {@link ByteBuffer} вне кучи. Буфер нарезан на блоки
+ * фиксированного размера, значение занимает цепочку свободных блоков. Уровень холодный,
+ * поэтому все операции идут под одним локом, а кодирование и декодирование — вне его.
+ * При нехватке блоков вытесняются давно не читанные записи (LRU).
+ */
+final class OffHeapTier<K, V> {
+    static final int BLOCK_SIZE = 1024;
+
+    record Entry<V>(V value, long freshUntil, Set<String> tags) {
+    }
+
+    private record Slot(int[] blocks, int length, long freshUntil, Set<String> tags) {
+    }
+
+    private final ValueCodec<V> codec;
+    private final ByteBuffer buffer;
+    private final int[] freeBlocks;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LinkedHashMap<K, Slot> slots = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, Set<K>> tagIndex = new HashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private int freeCount;
+
+    OffHeapTier(long capacityBytes, ValueCodec<V> codec) {
+        int blocks = (int) Math.min(Integer.MAX_VALUE / BLOCK_SIZE, capacityBytes / BLOCK_SIZE);
+        if (blocks <= 0) {
+            throw new IllegalArgumentException("Off-heap capacity must be at least "
+                    + BLOCK_SIZE + " bytes");
+        }
+        this.codec = codec;
+        this.buffer = ByteBuffer.allocateDirect(blocks * BLOCK_SIZE);
+        this.freeBlocks = new int[blocks];
+        for (int i = 0; i < blocks; i++) {
+            freeBlocks[i] = blocks - 1 - i;
+        }
+        this.freeCount = blocks;
+    }
+
+    // false — запись больше всего уровня и не сохранена
+    boolean put(K key, V value, long freshUntil, Set<String> tags) {
+        byte[] bytes = encode(value);
+        int needed = Math.max(1, (bytes.length + BLOCK_SIZE - 1) / BLOCK_SIZE);
+        if (needed > freeBlocks.length) {
+            return false;
+        }
+        lock.lock();
+        try {
+            release(key);
+            Iterator<Map.Entry<K, Slot>> eldest = slots.entrySet().iterator();
+            while (freeCount < needed) {
+                Map.Entry<K, Slot> victim = eldest.next();
+                eldest.remove();
+                free(victim.getKey(), victim.getValue());
+            }
+            int[] blocks = new int[needed];
+            for (int i = 0; i < needed; i++) {
+                blocks[i] = freeBlocks[--freeCount];
+                int offset = i * BLOCK_SIZE;
+                buffer.put(blocks[i] * BLOCK_SIZE, bytes, offset,
+                        Math.min(BLOCK_SIZE, bytes.length - offset));
+            }
+            slots.put(key, new Slot(blocks, bytes.length, freshUntil, tags));
+            for (String tag : tags) {
+                tagIndex.computeIfAbsent(tag, t -> new HashSet<>()).add(key);
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Запись забирается из уровня: при попадании её переносят обратно в heap
+    Entry<V> take(K key, long now) {
+        byte[] bytes;
+        Slot slot;
+        lock.lock();
+        try {
+            slot = slots.remove(key);
+            if (slot == null) {
+                return null;
+            }
+            free(key, slot);
+            if (now > slot.freshUntil()) {
+                return null;
+            }
+            bytes = new byte[slot.length()];
+            int[] blocks = slot.blocks();
+            for (int i = 0; i < blocks.length; i++) {
+                int offset = i * BLOCK_SIZE;
+                buffer.get(blocks[i] * BLOCK_SIZE, bytes, offset,
+                        Math.min(BLOCK_SIZE, bytes.length - offset));
+            }
+        } finally {
+            lock.unlock();
+        }
+        hits.increment();
+        return new Entry<>(decode(bytes), slot.freshUntil(), slot.tags());
+    }
+
+    void remove(K key) {
+        lock.lock();
+        try {
+            release(key);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void invalidateTags(Collection<String> tags) {
+        lock.lock();
+        try {
+            for (String tag : tags) {
+                Set<K> keys = tagIndex.get(tag);
+                if (keys != null) {
+                    for (K key : Set.copyOf(keys)) {
+                        release(key);
+                    }
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void removeIf(Predicate<? super K> keyFilter) {
+        lock.lock();
+        try {
+            for (K key : Set.copyOf(slots.keySet())) {
+                if (keyFilter.test(key)) {
+                    release(key);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void clear() {
+        removeIf(key -> true);
+    }
+
+    CacheTierStats stats() {
+        lock.lock();
+        try {
+            return new CacheTierStats("off-heap", slots.size(),
+                    (long) (freeBlocks.length - freeCount) * BLOCK_SIZE,
+                    (long) freeBlocks.length * BLOCK_SIZE, hits.sum());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void release(K key) {
+        Slot slot = slots.remove(key);
+        if (slot != null) {
+            free(key, slot);
+        }
+    }
+
+    // Вызывается под локом для записи, уже удалённой из slots
+    private void free(K key, Slot slot) {
+        for (int block : slot.blocks()) {
+            freeBlocks[freeCount++] = block;
+        }
+        for (String tag : slot.tags()) {
+            Set<K> keys = tagIndex.get(tag);
+            if (keys != null && keys.remove(key) && keys.isEmpty()) {
+                tagIndex.remove(tag);
+            }
+        }
+    }
+
+    private byte[] encode(V value) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            codec.encode(value, out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private V decode(byte[] bytes) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+            return codec.decode(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.demo.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import javax.sql.DataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+
+/**
+ * Шина на Postgres LISTEN/NOTIFY: сообщения уходят через {@code pg_notify} в JSON,
+ * а отдельный поток держит одно соединение пула с LISTEN и разбирает уведомления.
+ * Пока соединение восстанавливается, сообщения теряются — записи доживут до своего TTL.
+ */
+@Slf4j
+public final class PostgresInvalidationBus implements InvalidationBus {
+    // Payload NOTIFY ограничен 8000 байт; больший пакет заменяется очисткой кеша
+    private static final int MAX_PAYLOAD_BYTES = 7900;
+    private static final int POLL_MILLIS = 500;
+    private static final long RECONNECT_MILLIS = 5_000;
+
+    private final DataSource dataSource;
+    private final ObjectMapper objectMapper;
+    private final String channel;
+    private final List<Consumer<InvalidationMessage>> listeners = new CopyOnWriteArrayList<>();
+    private final Thread listener;
+    private volatile boolean closed;
+
+    public PostgresInvalidationBus(DataSource dataSource, ObjectMapper objectMapper,
+                                   String channel) {
+        // Имя канала подставляется в LISTEN как идентификатор, параметром его не передать
+        if (!channel.matches("[a-z_][a-z0-9_]{0,62}")) {
+            throw new IllegalArgumentException("Invalid notification channel: " + channel);
+        }
+        this.dataSource = dataSource;
+        this.objectMapper = objectMapper;
+        this.channel = channel;
+        this.listener = Thread.ofPlatform().name("cache-invalidation-listener").daemon()
+                .start(this::listen);
+    }
+
+    @Override
+    public void publish(InvalidationMessage message) {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement =
+                     connection.prepareStatement("SELECT pg_notify(?, ?)")) {
+            statement.setString(1, channel);
+            statement.setString(2, encode(message));
+            statement.execute();
+        } catch (SQLException e) {
+            log.warn("Failed to publish invalidation of cache '{}'", message.cacheName(), e);
+        }
+    }
+
+    private String encode(InvalidationMessage message) {
+        try {
+            String payload = objectMapper.writeValueAsString(message);
+            if (payload.getBytes(StandardCharsets.UTF_8).length <= MAX_PAYLOAD_BYTES) {
+                return payload;
+            }
+            return objectMapper.writeValueAsString(
+                    InvalidationMessage.cleared(message.origin(), message.cacheName()));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public void subscribe(Consumer<InvalidationMessage> listener) {
+        listeners.add(listener);
+    }
+
+    private void listen() {
+        while (!closed) {
+            try (Connection connection = dataSource.getConnection()) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + channel);
+                }
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                while (!closed) {
+                    PGNotification[] notifications = pgConnection.getNotifications(POLL_MILLIS);
+                    if (notifications != null) {
+                        for (PGNotification notification : notifications) {
+                            deliver(notification.getParameter());
+                        }
+                    }
+                }
+            } catch (SQLException e) {
+                if (closed) {
+                    return;
+                }
+                log.warn("Invalidation listener lost its connection, reconnecting", e);
+                try {
+                    Thread.sleep(RECONNECT_MILLIS);
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private void deliver(String payload) {
+        InvalidationMessage message;
+        try {
+            message = objectMapper.readValue(payload, InvalidationMessage.class);
+        } catch (JsonProcessingException e) {
+            log.warn("Ignoring malformed invalidation message: {}", payload, e);
+            return;
+        }
+        for (Consumer<InvalidationMessage> consumer : listeners) {
+            try {
+                consumer.accept(message);
+            } catch (RuntimeException e) {
+                log.warn("Invalidation listener failed", e);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        listener.interrupt();
+        listeners.clear();
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.demo.cache;
+
+public enum RemovalCause {
+    // Явное удаление через remove() или clear()
+    EXPLICIT,
+    // Значение перезаписано новым put() по тому же ключу
+    REPLACED,
+    // Вытеснено при превышении ёмкости. Слушатели MyCache не получают это событие,
+    // если запись перенесена в уровень вне кучи: get её ещё отдаст
+    SIZE,
+    // Новая запись не принята: тяжелее сегмента или отклонена фильтром допуска.
+    // В кеше её не было, поэтому слушатели удаления о ней не узнают
+    REJECTED,
+    // Истёк срок жизни
+    EXPIRED,
+    // Удалено инвалидацией по тегу или по условию на ключ
+    INVALIDATED
+}
@@ -0,0 +1,6 @@
+package com.example.demo.cache;
+
+@FunctionalInterface
+public interface RemovalListener<K, V> {
+    void onRemoval(K key, V value, RemovalCause cause);
+}
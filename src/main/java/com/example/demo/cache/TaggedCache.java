@@ -0,0 +1,65 @@
+package com.example.demo.cache;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Кеш, который выдаёт {@link CacheFactory}. Реализация выбирается по имени кеша
+ * через свойство {@code cache.<имя>.backend}, поэтому вызывающий код от неё не зависит.
+ */
+public interface TaggedCache<K, V> {
+
+    V get(K key);
+
+    V get(K key, Supplier<V> valueLoader);
+
+    // tagger сообщает, от каких сущностей зависит загруженное значение
+    V get(K key, Supplier<V> valueLoader,
+          Function<? super V, ? extends Collection<String>> tagger);
+
+    // Только свежее значение, без синхронной загрузки: промах и устаревшая запись дают null.
+    // В окне refresh-ahead попадание запускает фоновую перезагрузку через valueLoader
+    V getIfFresh(K key, Supplier<V> valueLoader,
+                 Function<? super V, ? extends Collection<String>> tagger);
+
+    // Отсутствующие ключи загружаются одним вызовом batchLoader и кешируются по отдельности.
+    // Результат упорядочен как keys; ключей, которых загрузчик не вернул, в нём нет.
+    Map<K, V> getAll(Collection<? extends K> keys, Function<Set<K>, Map<K, V>> batchLoader,
+                     Function<? super V, ? extends Collection<String>> tagger);
+
+    void put(K key, V value);
+
+    void put(K key, V value, Collection<String> tags);
+
+    void remove(K key);
+
+    void invalidateTag(String tag);
+
+    void invalidateTags(Collection<String> tags);
+
+    void invalidateIf(Predicate<? super K> keyFilter);
+
+    // Записи с числовым ключом не больше bound. В отличие от произвольного предиката
+    // invalidateIf, граница передаётся другим узлам, и там очищается тот же диапазон
+    default void invalidateKeysUpTo(double bound) {
+        invalidateIf(key -> key instanceof Number number && number.doubleValue() <= bound);
+    }
+
+    void clear();
+
+    int size();
+
+    long weightedSize();
+
+    void addRemovalListener(RemovalListener<K, V> listener);
+
+    String getCacheName();
+
+    CacheStatsSnapshot getStats();
+
+    void close();
+}
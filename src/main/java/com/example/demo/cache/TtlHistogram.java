@@ -0,0 +1,40 @@
+package com.example.demo.cache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Распределение TTL, с которым записи попадают в heap (для поднятых из уровня вне кучи
+ * и из снимка — оставшийся TTL). Корзины по степеням двойки в секундах: корзина i
+ * считает TTL меньше 2^i с. Запись — один {@link LongAdder#increment()}.
+ */
+final class TtlHistogram {
+    private static final int BUCKETS = 24;
+
+    private final LongAdder[] counts = new LongAdder[BUCKETS];
+
+    TtlHistogram() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = new LongAdder();
+        }
+    }
+
+    void record(long millis) {
+        long seconds = Math.max(0, millis / 1_000);
+        int bucket = Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(seconds));
+        counts[bucket].increment();
+    }
+
+    // Непустые корзины: "<N s" -> количество записей
+    Map<String, Long> buckets() {
+        Map<String, Long> result = new LinkedHashMap<>();
+        for (int i = 0; i < BUCKETS; i++) {
+            long count = counts[i].sum();
+            if (count > 0) {
+                result.put("<" + (1L << i) + "s", count);
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.demo.cache;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+// Компактное двоичное представление значения (или ключа) для уровня вне кучи и снимков
+public interface ValueCodec<V> {
+    void encode(V value, DataOutput out) throws IOException;
+
+    V decode(DataInput in) throws IOException;
+
+    static ValueCodec<Long> longs() {
+        return new ValueCodec<>() {
+            @Override
+            public void encode(Long value, DataOutput out) throws IOException {
+                out.writeLong(value);
+            }
+
+            @Override
+            public Long decode(DataInput in) throws IOException {
+                return in.readLong();
+            }
+        };
+    }
+
+    static ValueCodec<String> strings() {
+        return new ValueCodec<>() {
+            @Override
+            public void encode(String value, DataOutput out) throws IOException {
+                out.writeUTF(value);
+            }
+
+            @Override
+            public String decode(DataInput in) throws IOException {
+                return in.readUTF();
+            }
+        };
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.demo.cache;
+
+import java.util.Collection;
+
+// Оценка веса записи в условных единицах бюджета кеша (например, байтах)
+@FunctionalInterface
+public interface Weigher<K, V> {
+    int weigh(K key, V value);
+
+    static <K, V> Weigher<K, V> singleton() {
+        return (key, value) -> 1;
+    }
+
+    // Вес коллекции: постоянная часть плюс стоимость каждого элемента
+    static <K, V extends Collection<?>> Weigher<K, V> perElement(int baseWeight,
+                                                                 int elementWeight) {
+        return (key, value) -> (int) Math.min(Integer.MAX_VALUE,
+                baseWeight + (long) value.size() * elementWeight);
+    }
+}
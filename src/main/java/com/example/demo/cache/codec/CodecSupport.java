@@ -0,0 +1,35 @@
+package com.example.demo.cache.codec;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+// Поля сущностей могут быть null, поэтому перед значением пишется флаг наличия
+final class CodecSupport {
+
+    private CodecSupport() {
+        throw new UnsupportedOperationException("Utility class");
+    }
+
+    static void writeId(DataOutput out, Long id) throws IOException {
+        out.writeBoolean(id != null);
+        if (id != null) {
+            out.writeLong(id);
+        }
+    }
+
+    static Long readId(DataInput in) throws IOException {
+        return in.readBoolean() ? in.readLong() : null;
+    }
+
+    static void writeString(DataOutput out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    static String readString(DataInput in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.demo.cache.codec;
+
+import com.example.demo.cache.ValueCodec;
+import com.example.demo.entity.Bet;
+import com.example.demo.entity.Player;
+import com.example.demo.entity.Tournament;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Сериализует выборку игроков вместе со ставками и турнирами — ровно то, что нужно
+ * для тегов кеша и маппинга в {@code PlayerDto}. Игроки турниров не пишутся,
+ * восстановленные сущности не привязаны к сессии Hibernate.
+ */
+public final class PlayerListCodec implements ValueCodec<List<Player>> {
+
+    @Override
+    public void encode(List<Player> players, DataOutput out) throws IOException {
+        out.writeInt(players.size());
+        for (Player player : players) {
+            CodecSupport.writeId(out, player.getId());
+            CodecSupport.writeString(out, player.getName());
+            out.writeDouble(player.getBalance());
+            out.writeInt(player.getBets().size());
+            for (Bet bet : player.getBets()) {
+                CodecSupport.writeId(out, bet.getId());
+                out.writeDouble(bet.getAmount());
+            }
+            out.writeInt(player.getTournaments().size());
+            for (Tournament tournament : player.getTournaments()) {
+                CodecSupport.writeId(out, tournament.getId());
+                CodecSupport.writeString(out, tournament.getName());
+                out.writeDouble(tournament.getPrizePool());
+            }
+        }
+    }
+
+    @Override
+    public List<Player> decode(DataInput in) throws IOException {
+        int size = in.readInt();
+        List<Player> players = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Player player = new Player();
+            player.setId(CodecSupport.readId(in));
+            player.setName(CodecSupport.readString(in));
+            player.setBalance(in.readDouble());
+            int bets = in.readInt();
+            for (int j = 0; j < bets; j++) {
+                Bet bet = new Bet();
+                bet.setId(CodecSupport.readId(in));
+                bet.setAmount(in.readDouble());
+                bet.setPlayer(player);
+                player.getBets().add(bet);
+            }
+            int tournaments = in.readInt();
+            for (int j = 0; j < tournaments; j++) {
+                Tournament tournament = new Tournament();
+                tournament.setId(CodecSupport.readId(in));
+                tournament.setName(CodecSupport.readString(in));
+                tournament.setPrizePool(in.readDouble());
+                player.getTournaments().add(tournament);
+            }
+            players.add(player);
+        }
+        return players;
+    }
+}
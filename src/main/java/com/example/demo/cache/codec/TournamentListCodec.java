@@ -0,0 +1,55 @@
+package com.example.demo.cache.codec;
+
+import com.example.demo.cache.ValueCodec;
+import com.example.demo.entity.Player;
+import com.example.demo.entity.Tournament;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Сериализует список турниров с краткими данными игроков, как в {@code TournamentDto}.
+ * Ставки и турниры самих игроков не пишутся.
+ */
+public final class TournamentListCodec implements ValueCodec<List<Tournament>> {
+
+    @Override
+    public void encode(List<Tournament> tournaments, DataOutput out) throws IOException {
+        out.writeInt(tournaments.size());
+        for (Tournament tournament : tournaments) {
+            CodecSupport.writeId(out, tournament.getId());
+            CodecSupport.writeString(out, tournament.getName());
+            out.writeDouble(tournament.getPrizePool());
+            out.writeInt(tournament.getPlayers().size());
+            for (Player player : tournament.getPlayers()) {
+                CodecSupport.writeId(out, player.getId());
+                CodecSupport.writeString(out, player.getName());
+                out.writeDouble(player.getBalance());
+            }
+        }
+    }
+
+    @Override
+    public List<Tournament> decode(DataInput in) throws IOException {
+        int size = in.readInt();
+        List<Tournament> tournaments = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Tournament tournament = new Tournament();
+            tournament.setId(CodecSupport.readId(in));
+            tournament.setName(CodecSupport.readString(in));
+            tournament.setPrizePool(in.readDouble());
+            int players = in.readInt();
+            for (int j = 0; j < players; j++) {
+                Player player = new Player();
+                player.setId(CodecSupport.readId(in));
+                player.setName(CodecSupport.readString(in));
+                player.setBalance(in.readDouble());
+                tournament.getPlayers().add(player);
+            }
+            tournaments.add(tournament);
+        }
+        return tournaments;
+    }
+}
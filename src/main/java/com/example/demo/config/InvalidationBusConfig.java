@@ -0,0 +1,30 @@
+package com.example.demo.config;
+
+import com.example.demo.cache.InvalidationBus;
+import com.example.demo.cache.LoopbackInvalidationBus;
+import com.example.demo.cache.PostgresInvalidationBus;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import javax.sql.DataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+// Без свойства cache.invalidation.bus шины нет и кеши остаются локальными
+@Configuration
+public class InvalidationBusConfig {
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "cache.invalidation.bus", havingValue = "postgres")
+    public InvalidationBus postgresInvalidationBus(
+            DataSource dataSource, ObjectMapper objectMapper,
+            @Value("${cache.invalidation.channel:cache_invalidation}") String channel) {
+        return new PostgresInvalidationBus(dataSource, objectMapper, channel);
+    }
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "cache.invalidation.bus", havingValue = "loopback")
+    public InvalidationBus loopbackInvalidationBus() {
+        return new LoopbackInvalidationBus();
+    }
+}
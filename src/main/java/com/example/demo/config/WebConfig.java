@@ -16,6 +16,6 @@ public class WebConfig implements WebMvcConfigurer {
     public void addInterceptors(InterceptorRegistry registry) {
         registry.addInterceptor(visitCounterInterceptor)
                 .addPathPatterns("/**")
-                .excludePathPatterns("/visits/**");
+                .excludePathPatterns("/visits/**", "/caches/**");
     }
 }
\ No newline at end of file
@@ -1,19 +1,23 @@
 package com.example.demo.controller;
 
 import com.example.demo.dto.BetDto;
+import com.example.demo.dto.PageDto;
+import com.example.demo.service.BetExportService;
 import com.example.demo.service.BetService;
 import io.swagger.v3.oas.annotations.Operation;
-import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
-import java.util.List;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 
 
@@ -23,21 +27,70 @@ import org.springframework.web.bind.annotation.RestController;
 @RequestMapping("/bets")
 @Tag(name = "Bet Controller", description = "API для управления ставками")
 public class AllBetController {
+    private static final String NDJSON = "application/x-ndjson";
     private final BetService betService;
+    private final BetExportService betExportService;
 
-    public AllBetController(BetService betService) {
+    public AllBetController(BetService betService, BetExportService betExportService) {
         this.betService = betService;
+        this.betExportService = betExportService;
     }
 
     @GetMapping
-    @Operation(summary = "Получить все ставки", description = "Возвращает список всех ставок")
+    @Operation(
+            summary = "Получить ставки постранично",
+            description = "Возвращает страницу ставок в порядке ID; следующая страница "
+                    + "запрашивается с nextCursor ответа, пока он не станет null",
+            parameters = {
+                @Parameter(
+                            name = "limit",
+                            description = "Размер страницы, от 1 до 500",
+                            example = "50"
+                    ),
+                @Parameter(
+                            name = "cursor",
+                            description = "nextCursor предыдущей страницы, без него — первая"
+                    )
+            }
+    )
     @ApiResponses({
         @ApiResponse(
                     responseCode = "200",
                     description = "Успешный запрос",
                     content = @Content(
                             mediaType = "application/json",
-                            array = @ArraySchema(schema = @Schema(implementation = BetDto.class))
+                            schema = @Schema(implementation = PageDto.class)
+                    )
+            ),
+        @ApiResponse(
+                    responseCode = "400",
+                    description = "Недопустимый курсор или размер страницы"
+            ),
+        @ApiResponse(
+                    responseCode = "500",
+                    description = "Внутренняя ошибка сервера"
+            )
+    })
+    public ResponseEntity<PageDto<BetDto>> getBetsPage(
+            @RequestParam(defaultValue = "50") int limit,
+            @RequestParam(required = false) String cursor) {
+        return ResponseEntity.ok(betService.getBetsPage(cursor, limit));
+    }
+
+    // Тело пишется в потоке MVC async по мере чтения курсора, память не растёт с таблицей
+    @GetMapping(value = "/export", produces = NDJSON)
+    @Operation(
+            summary = "Выгрузить все ставки",
+            description = "Потоково отдаёт все ставки в порядке ID в формате NDJSON: "
+                    + "по JSON-объекту ставки в строке"
+    )
+    @ApiResponses({
+        @ApiResponse(
+                    responseCode = "200",
+                    description = "Успешный запрос",
+                    content = @Content(
+                            mediaType = NDJSON,
+                            schema = @Schema(implementation = BetDto.class)
                     )
             ),
         @ApiResponse(
@@ -45,8 +98,9 @@ public class AllBetController {
                     description = "Внутренняя ошибка сервера"
             )
     })
-    public ResponseEntity<List<BetDto>> getAllBets() {
-        List<BetDto> bets = betService.getAllBets();
-        return ResponseEntity.ok(bets);
+    public ResponseEntity<StreamingResponseBody> exportBets() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(NDJSON))
+                .body(betExportService::exportNdjson);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,33 @@
+package com.example.demo.controller;
+
+
+import com.example.demo.cache.CacheFactory;
+import com.example.demo.cache.CacheStatsSnapshot;
+import com.example.demo.exception.ResourceNotFoundException;
+import java.util.List;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/caches")
+public class CacheStatsController {
+    private final CacheFactory cacheFactory;
+
+    public CacheStatsController(CacheFactory cacheFactory) {
+        this.cacheFactory = cacheFactory;
+    }
+
+    @GetMapping("/stats")
+    public ResponseEntity<List<CacheStatsSnapshot>> getAllStats() {
+        return ResponseEntity.ok(cacheFactory.getStats());
+    }
+
+    @GetMapping("/stats/{name}")
+    public ResponseEntity<CacheStatsSnapshot> getStats(@PathVariable String name) {
+        return ResponseEntity.ok(cacheFactory.getStats(name)
+                .orElseThrow(() -> new ResourceNotFoundException("Cache not found: " + name)));
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.demo.controller;
+
+import com.example.demo.cache.JsonBody;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+// Ответы из готовых байтов: Spring пишет byte[] в поток ответа как есть, без Jackson
+final class JsonResponses {
+
+    private static final String GZIP = "gzip";
+
+    private JsonResponses() {
+        throw new UnsupportedOperationException("Utility class");
+    }
+
+    static ResponseEntity<byte[]> ok(JsonBody body, String acceptEncoding) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (body.gzip() != null && acceptsGzip(acceptEncoding)) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, GZIP).body(body.gzip());
+        }
+        return response.body(body.json());
+    }
+
+    // "gzip;q=0" означает явный отказ от сжатия
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            if (!parts[0].trim().equalsIgnoreCase(GZIP)) {
+                continue;
+            }
+            for (int i = 1; i < parts.length; i++) {
+                String param = parts[i].trim().replace(" ", "");
+                if (param.matches("q=0(\\.0{0,3})?")) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.demo.controller;
 
+import com.example.demo.dto.PageDto;
 import com.example.demo.dto.PlayerDto;
 import com.example.demo.service.PlayerService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -12,6 +13,8 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -21,6 +24,7 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
@@ -68,15 +72,29 @@ public class PlayerController {
             )
     })
     @GetMapping(value = "/bets", produces = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<List<PlayerDto>> getPlayersWithBets(
-            @RequestParam Long bets) {
-        List<PlayerDto> players = playerService.findPlayersWithBetsMoreThan(bets);
-        return ResponseEntity.ok(players);
+    public CompletableFuture<ResponseEntity<byte[]>> getPlayersWithBets(
+            @RequestParam Long bets,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false)
+            String acceptEncoding) {
+        return playerService.findPlayersWithBetsMoreThanJsonAsync(bets)
+                .thenApply(body -> JsonResponses.ok(body, acceptEncoding));
     }
 
     @Operation(
-            summary = "Получить всех игроков",
-            description = "Возвращает список всех зарегистрированных игроков"
+            summary = "Получить игроков постранично",
+            description = "Возвращает страницу игроков в порядке ID; следующая страница "
+                    + "запрашивается с nextCursor ответа, пока он не станет null",
+            parameters = {
+                @Parameter(
+                            name = "limit",
+                            description = "Размер страницы, от 1 до 500",
+                            example = "50"
+                    ),
+                @Parameter(
+                            name = "cursor",
+                            description = "nextCursor предыдущей страницы, без него — первая"
+                    )
+            }
     )
     @ApiResponses({
         @ApiResponse(
@@ -84,13 +102,57 @@ public class PlayerController {
                     description = "Успешный запрос",
                     content = @Content(
                             mediaType = MediaType.APPLICATION_JSON_VALUE,
-                            schema = @Schema(implementation = PlayerDto.class)
-                    ))
+                            schema = @Schema(implementation = PageDto.class)
+                    )),
+        @ApiResponse(
+                    responseCode = "400",
+                    description = "Недопустимый курсор или размер страницы",
+                    content = @Content(
+                            mediaType = MediaType.TEXT_PLAIN_VALUE,
+                            examples = @ExampleObject(value = "Invalid cursor: abc")
+                    )
+            )
         })
     @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<List<PlayerDto>> getAllPlayers() {
-        List<PlayerDto> players = playerService.getAllPlayers();
-        return ResponseEntity.ok(players);
+    public ResponseEntity<PageDto<PlayerDto>> getPlayersPage(
+            @RequestParam(defaultValue = "50") int limit,
+            @RequestParam(required = false) String cursor) {
+        return ResponseEntity.ok(playerService.getPlayersPage(cursor, limit));
+    }
+
+    @Operation(
+            summary = "Получить игроков по списку ID",
+            description = "Возвращает найденных игроков в порядке переданных ID, "
+                    + "несуществующие ID пропускаются",
+            parameters = {
+                @Parameter(
+                            name = "ids",
+                            description = "ID игроков через запятую, не больше 100",
+                            example = "1,2,3",
+                            required = true
+                    )
+            }
+    )
+    @ApiResponses({
+        @ApiResponse(
+                    responseCode = "200",
+                    description = "Успешный запрос",
+                    content = @Content(
+                            mediaType = MediaType.APPLICATION_JSON_VALUE,
+                            schema = @Schema(implementation = PlayerDto.class)
+                    )),
+        @ApiResponse(
+                    responseCode = "400",
+                    description = "Слишком много ID в одном запросе",
+                    content = @Content(
+                            mediaType = MediaType.TEXT_PLAIN_VALUE,
+                            examples = @ExampleObject(value = "No more than 100 ids per request")
+                    )
+            )
+    })
+    @GetMapping(params = "ids", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<List<PlayerDto>> getPlayersByIds(@RequestParam List<Long> ids) {
+        return ResponseEntity.ok(playerService.getPlayersByIds(ids));
     }
 
     @PostMapping("/bulk")
@@ -1,5 +1,6 @@
 package com.example.demo.controller;
 
+import com.example.demo.dto.PageDto;
 import com.example.demo.dto.TournamentDto;
 import com.example.demo.service.TournamentService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -12,7 +13,9 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -22,6 +25,7 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
@@ -36,8 +40,20 @@ public class TournamentController {
     private final TournamentService tournamentService;
 
     @Operation(
-            summary = "Получить все турниры",
-            description = "Возвращает список всех доступных турниров"
+            summary = "Получить турниры постранично",
+            description = "Возвращает страницу турниров в порядке ID; следующая страница "
+                    + "запрашивается с nextCursor ответа, пока он не станет null",
+            parameters = {
+                @Parameter(
+                            name = "limit",
+                            description = "Размер страницы, от 1 до 500",
+                            example = "50"
+                    ),
+                @Parameter(
+                            name = "cursor",
+                            description = "nextCursor предыдущей страницы, без него — первая"
+                    )
+            }
     )
     @ApiResponses({
         @ApiResponse(
@@ -45,14 +61,58 @@ public class TournamentController {
                     description = "Успешный запрос",
                     content = @Content(
                             mediaType = MediaType.APPLICATION_JSON_VALUE,
-                            schema = @Schema(implementation = TournamentDto.class)
+                            schema = @Schema(implementation = PageDto.class)
+                    )
+            ),
+        @ApiResponse(
+                    responseCode = "400",
+                    description = "Недопустимый курсор или размер страницы",
+                    content = @Content(
+                            mediaType = MediaType.TEXT_PLAIN_VALUE,
+                            examples = @ExampleObject(value = "Invalid cursor: abc")
                     )
             )
     })
     @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<List<TournamentDto>> getAllTournaments() {
-        List<TournamentDto> tournaments = tournamentService.getAllTournaments();
-        return ResponseEntity.ok(tournaments);
+    public ResponseEntity<PageDto<TournamentDto>> getTournamentsPage(
+            @RequestParam(defaultValue = "50") int limit,
+            @RequestParam(required = false) String cursor) {
+        return ResponseEntity.ok(tournamentService.getTournamentsPage(cursor, limit));
+    }
+
+    @Operation(
+            summary = "Получить турниры по списку ID",
+            description = "Возвращает найденные турниры в порядке переданных ID, "
+                    + "несуществующие ID пропускаются",
+            parameters = {
+                @Parameter(
+                            name = "ids",
+                            description = "ID турниров через запятую, не больше 100",
+                            example = "1,2,3",
+                            required = true
+                    )
+            }
+    )
+    @ApiResponses({
+        @ApiResponse(
+                    responseCode = "200",
+                    description = "Успешный запрос",
+                    content = @Content(
+                            mediaType = MediaType.APPLICATION_JSON_VALUE,
+                            schema = @Schema(implementation = TournamentDto.class)
+                    )),
+        @ApiResponse(
+                    responseCode = "400",
+                    description = "Слишком много ID в одном запросе",
+                    content = @Content(
+                            mediaType = MediaType.TEXT_PLAIN_VALUE,
+                            examples = @ExampleObject(value = "No more than 100 ids per request")
+                    )
+            )
+    })
+    @GetMapping(params = "ids", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<List<TournamentDto>> getTournamentsByIds(@RequestParam List<Long> ids) {
+        return ResponseEntity.ok(tournamentService.getTournamentsByIds(ids));
     }
 
     @Operation(
@@ -86,10 +146,12 @@ public class TournamentController {
                     )
         })
     @GetMapping(value = "/byPlayerName", produces = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<List<TournamentDto>> getTournamentsByPlayerName(
-            @RequestParam String name) {
-        List<TournamentDto> tournaments = tournamentService.getTournamentsByPlayerName(name);
-        return ResponseEntity.ok(tournaments);
+    public CompletableFuture<ResponseEntity<byte[]>> getTournamentsByPlayerName(
+            @RequestParam String name,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false)
+            String acceptEncoding) {
+        return tournamentService.getTournamentsByPlayerNameJsonAsync(name)
+                .thenApply(body -> JsonResponses.ok(body, acceptEncoding));
     }
 
     @Operation(
@@ -0,0 +1,25 @@
+package com.example.demo.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Schema(description = "Страница списка с курсором продолжения")
+public class PageDto<T> {
+
+    @Schema(description = "Элементы страницы в порядке возрастания ID")
+    private List<T> items;
+
+    @Schema(
+            description = "Непрозрачный курсор следующей страницы; null на последней странице",
+            example = "AQAAAAAAAAAq"
+    )
+    private String nextCursor;
+}
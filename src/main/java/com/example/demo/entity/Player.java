@@ -9,6 +9,7 @@ import jakarta.persistence.JoinColumn;
 import jakarta.persistence.JoinTable;
 import jakarta.persistence.ManyToMany;
 import jakarta.persistence.OneToMany;
+import jakarta.persistence.SequenceGenerator;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
@@ -26,10 +27,15 @@ import org.springframework.data.annotation.Id;
 @AllArgsConstructor
 @NoArgsConstructor
 public class Player {
+    public static final int ID_ALLOCATION_SIZE = 50;
 
     @jakarta.persistence.Id
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // IDENTITY выдаёт ID только после INSERT и поэтому отключает JDBC-батчинг.
+    // Последовательность с шагом 50 даёт Hibernate блок ID на один запрос nextval
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "player_seq")
+    @SequenceGenerator(name = "player_seq", sequenceName = "player_seq",
+            allocationSize = Player.ID_ALLOCATION_SIZE)
     private Long id;
     private String name;
     private double balance;
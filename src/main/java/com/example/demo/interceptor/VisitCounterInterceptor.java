@@ -4,6 +4,7 @@ import com.example.demo.service.VisitCounterService;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpMethod;
 import org.springframework.stereotype.Component;
 import org.springframework.web.servlet.HandlerInterceptor;
 import org.springframework.web.servlet.ModelAndView;
@@ -21,5 +22,9 @@ public class VisitCounterInterceptor implements HandlerInterceptor {
 
         String url = request.getRequestURI();
         visitCounterService.incrementCount(url);
+        String query = request.getQueryString();
+        if (query != null && HttpMethod.GET.matches(request.getMethod())) {
+            visitCounterService.incrementQueryCount(url + "?" + query);
+        }
     }
 }
\ No newline at end of file
@@ -6,7 +6,10 @@ import com.example.demo.dto.PlayerDto;
 import com.example.demo.dto.PlayerInfoDto;
 import com.example.demo.dto.TournamentInfoDto;
 import com.example.demo.entity.Player;
+import com.example.demo.repository.PlayerTournamentRow;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 
@@ -39,6 +42,38 @@ public class PlayerMapperUtils {
         return playerDto;
     }
 
+    // Сборка PlayerDto из проекций: ставки и турниры группируются по ID игрока,
+    // порядок игроков сохраняется
+    public static List<PlayerDto> assemble(List<PlayerInfoDto> players, List<BetDto> bets,
+                                           List<PlayerTournamentRow> tournaments) {
+        Map<Long, List<BetDto>> betsByPlayer = bets.stream()
+                .collect(Collectors.groupingBy(BetDto::getPlayerId));
+        Map<Long, List<TournamentInfoDto>> tournamentsByPlayer = tournaments.stream()
+                .collect(Collectors.groupingBy(PlayerTournamentRow::playerId,
+                        Collectors.mapping(PlayerTournamentRow::toInfoDto,
+                                Collectors.toList())));
+        return players.stream()
+                .map(player -> new PlayerDto(player.getId(), player.getName(),
+                        player.getBalance(),
+                        betsByPlayer.getOrDefault(player.getId(), new ArrayList<>()),
+                        tournamentsByPlayer.getOrDefault(player.getId(), new ArrayList<>())))
+                .toList();
+    }
+
+    // Глубокая копия: DTO изменяемы, а экземпляр из кеша по ID не должен меняться снаружи
+    public static PlayerDto copy(PlayerDto player) {
+        List<BetDto> bets = player.getBets() == null ? null : player.getBets().stream()
+                .map(bet -> new BetDto(bet.getId(), bet.getAmount(), bet.getPlayerId()))
+                .collect(Collectors.toList());
+        List<TournamentInfoDto> tournaments = player.getTournaments() == null ? null
+                : player.getTournaments().stream()
+                        .map(tournament -> new TournamentInfoDto(tournament.getId(),
+                                tournament.getName(), tournament.getPrizePool()))
+                        .collect(Collectors.toList());
+        return new PlayerDto(player.getId(), player.getName(), player.getBalance(), bets,
+                tournaments);
+    }
+
     public static PlayerInfoDto converttoplayerinfodto(Player player) {
         PlayerInfoDto playerInfoDto = new PlayerInfoDto();
         playerInfoDto.setId(player.getId());
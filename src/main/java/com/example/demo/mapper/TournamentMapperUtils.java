@@ -4,7 +4,10 @@ import com.example.demo.dto.PlayerInfoDto;
 import com.example.demo.dto.TournamentDto;
 import com.example.demo.dto.TournamentInfoDto;
 import com.example.demo.entity.Tournament;
+import com.example.demo.repository.TournamentPlayerRow;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 public class TournamentMapperUtils {
@@ -13,6 +16,17 @@ public class TournamentMapperUtils {
         throw new UnsupportedOperationException("Utility class");
     }
 
+    // Глубокая копия, как PlayerMapperUtils.copy
+    public static TournamentDto copy(TournamentDto tournament) {
+        List<PlayerInfoDto> players = tournament.getPlayers() == null ? null
+                : tournament.getPlayers().stream()
+                        .map(player -> new PlayerInfoDto(player.getId(), player.getName(),
+                                player.getBalance()))
+                        .collect(Collectors.toList());
+        return new TournamentDto(tournament.getId(), tournament.getName(),
+                tournament.getPrizePool(), players);
+    }
+
     // Преобразование Tournament -> TournamentInfoDto
     public static TournamentInfoDto converttotournamentinfodto(Tournament tournament) {
         TournamentInfoDto tournamentInfoDto = new TournamentInfoDto();
@@ -22,6 +36,21 @@ public class TournamentMapperUtils {
         return tournamentInfoDto;
     }
 
+    // Сборка TournamentDto из проекций: участники группируются по ID турнира,
+    // порядок турниров сохраняется
+    public static List<TournamentDto> assemble(List<TournamentInfoDto> tournaments,
+                                               List<TournamentPlayerRow> players) {
+        Map<Long, List<PlayerInfoDto>> playersByTournament = players.stream()
+                .collect(Collectors.groupingBy(TournamentPlayerRow::tournamentId,
+                        Collectors.mapping(TournamentPlayerRow::toInfoDto,
+                                Collectors.toList())));
+        return tournaments.stream()
+                .map(tournament -> new TournamentDto(tournament.getId(), tournament.getName(),
+                        tournament.getPrizePool(),
+                        playersByTournament.getOrDefault(tournament.getId(), new ArrayList<>())))
+                .toList();
+    }
+
     // Преобразование сущности Tournament в TournamentDTO
     public static TournamentDto converttodto(Tournament tournament) {
         TournamentDto tournamentDto = new TournamentDto();
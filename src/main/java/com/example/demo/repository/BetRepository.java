@@ -1,12 +1,28 @@
 package com.example.demo.repository;
 
 
+import com.example.demo.dto.BetDto;
 import com.example.demo.entity.Bet;
+import java.util.Collection;
 import java.util.List;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 
 
 public interface BetRepository extends JpaRepository<Bet, Long> {
-    List<Bet> findByPlayerId(Long playerId);
+    // Проекции для чтения: ID игрока берётся из внешнего ключа, без join и сущностей
+    @Query("SELECT new com.example.demo.dto.BetDto(b.id, b.amount, b.player.id) "
+            + "FROM Bet b WHERE b.player.id = :playerId ORDER BY b.id")
+    List<BetDto> findDtosByPlayerId(@Param("playerId") Long playerId);
+
+    @Query("SELECT new com.example.demo.dto.BetDto(b.id, b.amount, b.player.id) "
+            + "FROM Bet b WHERE b.player.id IN :playerIds ORDER BY b.id")
+    List<BetDto> findDtosByPlayerIdIn(@Param("playerIds") Collection<Long> playerIds);
+
+    @Query("SELECT new com.example.demo.dto.BetDto(b.id, b.amount, b.player.id) "
+            + "FROM Bet b WHERE b.id > :after ORDER BY b.id")
+    List<BetDto> findDtoPageAfter(@Param("after") long after, Limit limit);
 }
@@ -1,7 +1,10 @@
 package com.example.demo.repository;
 
+import com.example.demo.dto.PlayerInfoDto;
 import com.example.demo.entity.Player;
+import java.util.Collection;
 import java.util.List;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -12,4 +15,23 @@ public interface PlayerRepository extends JpaRepository<Player, Long> {
     @Query("SELECT DISTINCT p FROM Player p JOIN p.bets b WHERE b.amount >= :minAmount")
     List<Player> findPlayersWithBetsGreaterThan(@Param("minAmount") double minAmount);
 
+    // Только индекс первичного ключа: DTO страницы берутся из кеша игроков по ID
+    @Query("SELECT p.id FROM Player p WHERE p.id > :after ORDER BY p.id")
+    List<Long> findIdsAfter(@Param("after") long after, Limit limit);
+
+    @Query("SELECT DISTINCT p.name FROM Player p WHERE p.name IS NOT NULL")
+    List<String> findAllNames();
+
+    // Проекции для чтения: DTO создаются прямо из строк результата, минуя контекст
+    // персистентности и снимки для dirty checking. Ставки и турниры выбираются
+    // отдельными запросами по ID игроков (см. BetRepository) и собираются в PlayerDto
+    @Query("SELECT new com.example.demo.dto.PlayerInfoDto(p.id, p.name, p.balance) "
+            + "FROM Player p WHERE p.id IN :ids ORDER BY p.id")
+    List<PlayerInfoDto> findInfoByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT new com.example.demo.repository.PlayerTournamentRow("
+            + "p.id, t.id, t.name, t.prizePool) FROM Player p JOIN p.tournaments t "
+            + "WHERE p.id IN :ids ORDER BY t.id")
+    List<PlayerTournamentRow> findTournamentRowsByPlayerIdIn(@Param("ids") Collection<Long> ids);
+
 }
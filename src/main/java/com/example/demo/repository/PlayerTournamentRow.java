@@ -0,0 +1,12 @@
+package com.example.demo.repository;
+
+import com.example.demo.dto.TournamentInfoDto;
+
+// Строка связи игрок — турнир для сборки PlayerDto без загрузки сущностей
+public record PlayerTournamentRow(Long playerId, Long tournamentId, String name,
+                                  double prizePool) {
+
+    public TournamentInfoDto toInfoDto() {
+        return new TournamentInfoDto(tournamentId, name, prizePool);
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.demo.repository;
+
+import com.example.demo.dto.PlayerInfoDto;
+
+// Строка связи турнир — игрок для сборки TournamentDto без загрузки сущностей
+public record TournamentPlayerRow(Long tournamentId, Long playerId, String name,
+                                  double balance) {
+
+    public PlayerInfoDto toInfoDto() {
+        return new PlayerInfoDto(playerId, name, balance);
+    }
+}
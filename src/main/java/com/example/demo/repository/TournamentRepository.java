@@ -1,7 +1,10 @@
 package com.example.demo.repository;
 
+import com.example.demo.dto.TournamentInfoDto;
 import com.example.demo.entity.Tournament;
+import java.util.Collection;
 import java.util.List;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -21,4 +24,19 @@ public interface TournamentRepository extends JpaRepository<Tournament, Long> {
             nativeQuery = true
     )
     List<Tournament> findTournamentsByName(@Param("name") String name);
+
+    // Только индекс первичного ключа: DTO страницы берутся из кеша турниров по ID
+    @Query("SELECT t.id FROM Tournament t WHERE t.id > :after ORDER BY t.id")
+    List<Long> findIdsAfter(@Param("after") long after, Limit limit);
+
+    // Проекции для чтения: турниры и их участники двумя запросами без сущностей
+    @Query("SELECT new com.example.demo.dto.TournamentInfoDto(t.id, t.name, t.prizePool) "
+            + "FROM Tournament t WHERE t.id IN :ids ORDER BY t.id")
+    List<TournamentInfoDto> findInfoByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT new com.example.demo.repository.TournamentPlayerRow("
+            + "t.id, p.id, p.name, p.balance) FROM Tournament t JOIN t.players p "
+            + "WHERE t.id IN :ids ORDER BY p.id")
+    List<TournamentPlayerRow> findPlayerRowsByTournamentIdIn(
+            @Param("ids") Collection<Long> ids);
 }
@@ -0,0 +1,7 @@
+package com.example.demo.repository;
+
+import com.example.demo.entity.VisitCount;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface VisitCountRepository extends JpaRepository<VisitCount, String> {
+}
@@ -0,0 +1,39 @@
+package com.example.demo.service;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+// Запись в кеш после коммита: откат транзакции не оставит в кеше несохранённых данных
+final class AfterCommit {
+
+    private AfterCommit() {
+        throw new UnsupportedOperationException("Utility class");
+    }
+
+    static void run(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        register(action);
+    }
+
+    // Инвалидация до коммита убирает записи, которые транзакция сейчас меняет, но читатель,
+    // промахнувшийся после неё, загрузит ещё не изменённые строки — и эпоха кеша его
+    // уже не остановит. Повтор после коммита удаляет такое значение
+    static void runNowAndAfterCommit(Runnable action) {
+        action.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            register(action);
+        }
+    }
+
+    private static void register(Runnable action) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.BetDto;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.PreparedStatement;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+// Выгрузка всех ставок без загрузки таблицы в память: строки читаются курсором
+// и сразу пишутся в ответ, сущности и контекст персистентности не создаются
+@Service
+@RequiredArgsConstructor
+public class BetExportService {
+    // Столько строк драйвер держит в памяти за один проход курсора
+    static final int FETCH_SIZE = 1000;
+    private static final String EXPORT_SQL =
+            "SELECT id, amount, player_id FROM bet ORDER BY id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PlatformTransactionManager transactionManager;
+    private final ObjectMapper objectMapper;
+
+    // NDJSON: по объекту ставки в строке. Драйвер Postgres читает порциями по fetchSize
+    // только при выключенном autocommit, поэтому запрос идёт в read-only транзакции.
+    // Обрыв соединения клиентом прерывает чтение и закрывает курсор.
+    public void exportNdjson(OutputStream out) throws IOException {
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        long[] rows = new long[1];
+        try (SequenceWriter writer = objectMapper.writer()
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .withRootValueSeparator("\n")
+                .writeValues(out)) {
+            readOnly.executeWithoutResult(status -> jdbcTemplate.query(connection -> {
+                PreparedStatement statement = connection.prepareStatement(EXPORT_SQL);
+                statement.setFetchSize(FETCH_SIZE);
+                return statement;
+            }, rs -> {
+                try {
+                    writer.write(new BetDto(rs.getLong(1), rs.getDouble(2), rs.getLong(3)));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                rows[0]++;
+            }));
+            // Разделитель пишется перед значением, последней строке нужен свой перевод строки
+            writer.flush();
+            if (rows[0] > 0) {
+                out.write('\n');
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+}
@@ -1,14 +1,18 @@
 package com.example.demo.service;
 
+import com.example.demo.cache.CacheTags;
 import com.example.demo.dto.BetDto;
+import com.example.demo.dto.PageDto;
 import com.example.demo.entity.Bet;
 import com.example.demo.entity.Player;
 import com.example.demo.exception.InsufficientBalanceException;
 import com.example.demo.exception.ResourceNotFoundException;
 import com.example.demo.mapper.BetMapperUtils;
+import com.example.demo.mapper.PlayerMapperUtils;
 import com.example.demo.repository.BetRepository;
 import com.example.demo.repository.PlayerRepository;
 import java.util.List;
+import java.util.Set;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -22,21 +26,20 @@ public class BetService {
     private final BetRepository betRepository;
     private final PlayerRepository playerRepository;
     private final PlayerCacheService playerCacheService;
+    private final TournamentCacheService tournamentCacheService;
 
-    public List<BetDto> getAllBets() {
-        return betRepository.findAll().stream()
-                .map(BetMapperUtils::converttobetdto)
-                .toList();
+    @Transactional(readOnly = true)
+    public PageDto<BetDto> getBetsPage(String cursor, int limit) {
+        List<BetDto> bets = betRepository.findDtoPageAfter(PageCursors.after(cursor),
+                PageCursors.fetchLimit(limit));
+        return PageCursors.page(bets, limit, BetDto::getId, List::copyOf);
     }
 
-
     public List<BetDto> getBetsByPlayerId(Long playerId) {
         if (!playerRepository.existsById(playerId)) {
             throw new ResourceNotFoundException("Player not found with id: " + playerId);
         }
-        return betRepository.findByPlayerId(playerId).stream()
-                .map(BetMapperUtils::converttobetdto)
-                .toList();
+        return betRepository.findDtosByPlayerId(playerId);
     }
 
 
@@ -56,8 +59,11 @@ public class BetService {
 
         player.setBalance(player.getBalance() - betDto.getAmount());
         playerRepository.save(player);
-        playerCacheService.clear();
+        invalidatePlayer(playerId);
+        playerCacheService.invalidateThresholdsUpTo(betDto.getAmount());
         Bet savedBet = betRepository.save(bet);
+        player.getBets().add(savedBet);
+        playerCacheService.putPlayer(PlayerMapperUtils.converttodto(player));
         return BetMapperUtils.converttobetdto(savedBet);
     }
 
@@ -75,8 +81,17 @@ public class BetService {
         Player player = bet.getPlayer();
         player.setBalance(player.getBalance() + bet.getAmount());
         playerRepository.save(player);
-        playerCacheService.clear();
+        invalidatePlayer(player.getId());
 
         betRepository.delete(bet);
+        player.getBets().remove(bet);
+        playerCacheService.putPlayer(PlayerMapperUtils.converttodto(player));
+    }
+
+    // Баланс и ставки игрока видны и в выборках по ставкам, и в составах турниров
+    private void invalidatePlayer(Long playerId) {
+        Set<String> tags = Set.of(CacheTags.player(playerId));
+        playerCacheService.invalidate(tags);
+        tournamentCacheService.invalidate(tags);
     }
 }
\ No newline at end of file
@@ -0,0 +1,119 @@
+package com.example.demo.service;
+
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.util.UriComponents;
+import org.springframework.web.util.UriComponentsBuilder;
+
+/**
+ * Прогрев кешей самыми посещаемыми запросами прошлого запуска. Spring Boot переводит
+ * приложение в состояние готовности (ReadinessState.ACCEPTING_TRAFFIC) только после
+ * всех ApplicationRunner, поэтому трафик приходит уже в заполненные кеши.
+ * Одновременно к БД уходит не больше cache.warmup.concurrency загрузок, а весь прогрев
+ * ограничен cache.warmup.timeout-ms: недогретые записи загрузятся первыми запросами.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CacheWarmUp implements ApplicationRunner {
+    private static final String PLAYERS_BY_BETS = "/players/bets";
+    private static final String TOURNAMENTS_BY_PLAYER_NAME = "/tournaments/byPlayerName";
+
+    private final VisitCounterService visitCounterService;
+    private final PlayerService playerService;
+    private final TournamentService tournamentService;
+    private final Environment environment;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        int topN = environment.getProperty("cache.warmup.top-n", Integer.class, 200);
+        if (topN <= 0) {
+            return;
+        }
+        List<String> urls;
+        try {
+            urls = visitCounterService.restoreHistory();
+        } catch (RuntimeException e) {
+            log.warn("Skipping cache warm-up: visit history is unavailable", e);
+            return;
+        }
+        warmUp(urls.subList(0, Math.min(topN, urls.size())));
+    }
+
+    void warmUp(List<String> urls) {
+        int concurrency = environment.getProperty("cache.warmup.concurrency", Integer.class, 4);
+        long timeout = environment.getProperty("cache.warmup.timeout-ms", Long.class, 30_000L);
+        long start = System.nanoTime();
+        Semaphore permits = new Semaphore(concurrency);
+        AtomicInteger warmed = new AtomicInteger();
+        CompletableFuture<?>[] loads = new CompletableFuture<?>[urls.size()];
+        try {
+            for (int i = 0; i < urls.size(); i++) {
+                String url = urls.get(i);
+                long left = timeout - TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                if (!permits.tryAcquire(Math.max(0, left), TimeUnit.MILLISECONDS)) {
+                    loads[i] = CompletableFuture.completedFuture(null);
+                    continue;
+                }
+                loads[i] = load(url).handle((body, error) -> {
+                    permits.release();
+                    if (error == null) {
+                        warmed.incrementAndGet();
+                    } else {
+                        log.debug("Cache warm-up of {} failed", url, error);
+                    }
+                    return null;
+                });
+            }
+            long left = timeout - TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            CompletableFuture.allOf(loads).get(Math.max(0, left), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (TimeoutException | ExecutionException e) {
+            log.warn("Cache warm-up did not finish in {} ms", timeout);
+        }
+        log.info("Cache warm-up loaded {} of {} URLs in {} ms", warmed.get(), urls.size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    // Прогреваются и кеши сущностей, и готовые JSON-ответы тех же запросов
+    private CompletableFuture<?> load(String url) {
+        try {
+            UriComponents uri = UriComponentsBuilder.fromUriString(url).build();
+            MultiValueMap<String, String> params = uri.getQueryParams();
+            String path = uri.getPath() == null ? "" : uri.getPath();
+            return switch (path) {
+                case PLAYERS_BY_BETS -> playerService.findPlayersWithBetsMoreThanJsonAsync(
+                        Long.valueOf(param(params, "bets")));
+                case TOURNAMENTS_BY_PLAYER_NAME -> tournamentService
+                        .getTournamentsByPlayerNameJsonAsync(param(params, "name"));
+                default -> CompletableFuture.failedFuture(
+                        new IllegalArgumentException("No cache behind " + path));
+            };
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private static String param(MultiValueMap<String, String> params, String name) {
+        String value = params.getFirst(name);
+        if (value == null) {
+            throw new IllegalArgumentException("Missing parameter " + name);
+        }
+        return URLDecoder.decode(value, StandardCharsets.UTF_8);
+    }
+}
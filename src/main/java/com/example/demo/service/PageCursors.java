@@ -0,0 +1,64 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.PageDto;
+import com.example.demo.exception.BadRequestException;
+import java.nio.ByteBuffer;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+import org.springframework.data.domain.Limit;
+
+/**
+ * Keyset-пагинация по первичному ключу: страница выбирается как
+ * {@code WHERE id > :after ORDER BY id LIMIT :n}, поэтому её стоимость не зависит
+ * от номера страницы и размера таблицы. Курсор — последний отданный ID с байтом версии
+ * в Base64url; клиент его не разбирает, а формат можно сменить, подняв версию.
+ */
+final class PageCursors {
+    static final int MAX_LIMIT = 500;
+    private static final byte VERSION = 1;
+
+    private PageCursors() {
+        throw new UnsupportedOperationException("Utility class");
+    }
+
+    // Первая страница начинается без курсора
+    static long after(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return 0;
+        }
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(Base64.getUrlDecoder().decode(cursor.trim()));
+            if (buffer.remaining() != 1 + Long.BYTES || buffer.get() != VERSION) {
+                throw new BadRequestException("Invalid cursor: " + cursor);
+            }
+            return buffer.getLong();
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Invalid cursor: " + cursor);
+        }
+    }
+
+    // На одну строку больше страницы: так видно, есть ли следующая, без запроса count
+    static Limit fetchLimit(int limit) {
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new BadRequestException("Limit must be between 1 and " + MAX_LIMIT);
+        }
+        return Limit.of(limit + 1);
+    }
+
+    static <E, T> PageDto<T> page(List<E> rows, int limit, ToLongFunction<E> id,
+                                  Function<List<E>, List<T>> mapper) {
+        if (rows.size() <= limit) {
+            return new PageDto<>(mapper.apply(rows), null);
+        }
+        List<E> pageRows = rows.subList(0, limit);
+        return new PageDto<>(mapper.apply(pageRows),
+                encode(id.applyAsLong(pageRows.get(limit - 1))));
+    }
+
+    static String encode(long lastId) {
+        byte[] bytes = ByteBuffer.allocate(1 + Long.BYTES).put(VERSION).putLong(lastId).array();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+}
@@ -1,37 +1,266 @@
 package com.example.demo.service;
 
+import com.example.demo.cache.AsyncTaggedCache;
 import com.example.demo.cache.CacheFactory;
-import com.example.demo.cache.MyCache;
+import com.example.demo.cache.CacheSettings;
+import com.example.demo.cache.CacheTags;
+import com.example.demo.cache.JsonBody;
+import com.example.demo.cache.RemovalCause;
+import com.example.demo.cache.TaggedCache;
+import com.example.demo.cache.ValueCodec;
+import com.example.demo.cache.Weigher;
+import com.example.demo.cache.codec.PlayerListCodec;
+import com.example.demo.dto.PlayerDto;
+import com.example.demo.dto.TournamentInfoDto;
+import com.example.demo.entity.Bet;
 import com.example.demo.entity.Player;
+import com.example.demo.entity.Tournament;
+import com.example.demo.mapper.PlayerMapperUtils;
 import jakarta.annotation.PostConstruct;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.Function;
 import java.util.function.Supplier;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.Hibernate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 
 
 @Service
 @RequiredArgsConstructor
 public class PlayerCacheService {
+    // Грубая оценка занимаемой памяти: список плюс сущность с коллекцией связей
+    private static final long MAX_WEIGHT = 8L * 1024 * 1024;
+    private static final int LIST_WEIGHT = 64;
+    private static final int PLAYER_WEIGHT = 256;
+
+    // Обновляем запись в последнюю минуту TTL, а при сбое БД ещё 5 минут отдаём старую
+    private static final long REFRESH_AHEAD = 60_000;
+    private static final long STALE_IF_ERROR = 300_000;
+    // TTL ключа подстраивается под нагрузку: горячие и редко меняющиеся выборки живут
+    // до 30 минут, часто инвалидируемые — от 2 минут (больше окна перезагрузки)
+    private static final long MIN_TTL = 120_000;
+    private static final long MAX_TTL = 1_800_000;
+    // Порядок числа записей для Count-Min sketch фильтра допуска
+    private static final int EXPECTED_ENTRIES = 1000;
+    // Вытесненные из heap записи хранятся сериализованными вне кучи
+    private static final long OFF_HEAP_BYTES = 32L * 1024 * 1024;
+    // Столько самых востребованных записей переживает рестарт (см. cache.snapshot.dir)
+    private static final int SNAPSHOT_ENTRIES = 500;
+    // Игроки по ID: готовые DTO, по записи на игрока
+    private static final int BY_ID_ENTRIES = 10_000;
+    // Готовые JSON-ответы выборок: бюджет в байтах тел (вместе с gzip-версиями)
+    private static final long JSON_MAX_WEIGHT = 16L * 1024 * 1024;
+
     private final CacheFactory cacheFactory;
-    private MyCache<Long, List<Player>> playerCache;
+    private final PlatformTransactionManager transactionManager;
+    private TransactionTemplate readOnlyTransaction;
+    private AsyncTaggedCache<Long, List<Player>> playerCache;
+    private TaggedCache<Long, PlayerDto> playerByIdCache;
+    private AsyncTaggedCache<Long, TaggedJson> playerJsonCache;
+    // Пороги, выборки для которых сейчас лежат в кеше. Индекс может отставать от кеша:
+    // ключ без записи просто пропускается при поиске и удаляется из индекса
+    private final ConcurrentSkipListSet<Long> cachedThresholds = new ConcurrentSkipListSet<>();
 
     @PostConstruct  // Инициализируем кеш при создании бина
     public void init() {
-        this.playerCache = cacheFactory.createCache(
-                "playerCache",  // Название кеша
-                1000,          // Максимальный размер (maxSize)
-                300_000        // Время жизни записи (TTL, 5 минут в мс)
-        );
+        PlayerListCodec codec = new PlayerListCodec();
+        CacheSettings<Long, List<Player>> settings = CacheSettings
+                .<Long, List<Player>>weighted(
+                        MAX_WEIGHT,    // Бюджет памяти в оценочных байтах
+                        300_000,       // Базовый TTL (5 минут в мс), см. MIN_TTL и MAX_TTL
+                        Weigher.perElement(LIST_WEIGHT, PLAYER_WEIGHT))
+                .withRefreshAhead(REFRESH_AHEAD)
+                .withStaleIfError(STALE_IF_ERROR)
+                .withAdmissionFilter(EXPECTED_ENTRIES)
+                .withAdaptiveTtl(MIN_TTL, MAX_TTL)
+                .withOffHeapTier(OFF_HEAP_BYTES, codec)
+                .withSnapshot(SNAPSHOT_ENTRIES, ValueCodec.longs(), codec);
+        this.playerCache = cacheFactory.createAsyncCache("playerCache", settings);
+        // При перезагрузке старое значение заменяется новым, и порог остаётся в кеше.
+        // Вытесненное в уровень вне кучи слушатель не видит: порог всё ещё отдаётся,
+        // а выпавшие оттуда пороги убирает fromLowerThreshold
+        playerCache.synchronous().addRemovalListener((threshold, players, cause) -> {
+            if (cause != RemovalCause.REPLACED) {
+                cachedThresholds.remove(threshold);
+            }
+        });
+        this.playerByIdCache = cacheFactory.createCache("playerByIdCache",
+                CacheSettings.<Long, PlayerDto>of(BY_ID_ENTRIES, 300_000)
+                        .withAdmissionFilter(BY_ID_ENTRIES));
+        this.playerJsonCache = cacheFactory.createAsyncCache("playerJsonCache",
+                CacheSettings.<Long, TaggedJson>weighted(JSON_MAX_WEIGHT, 300_000,
+                                TaggedJson.weigher())
+                        .withAdmissionFilter(EXPECTED_ENTRIES));
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+    }
+
+    // Ключ — порог суммы ставки. Выборка для большего порога получается фильтрацией
+    // закешированной выборки для меньшего, в БД идём только если такой нет
+    public List<Player> getPlayer(Long threshold, Supplier<List<Player>> loader) {
+        List<Player> covered = fromLowerThreshold(threshold);
+        if (covered != null) {
+            return covered;
+        }
+        List<Player> players = playerCache.synchronous().get(threshold,
+                () -> loadInitialized(loader), PlayerCacheService::dependencies);
+        cachedThresholds.add(threshold);
+        return players;
+    }
+
+    // Загрузчик выполняется в пуле кеша, поток запроса не блокируется
+    public CompletableFuture<List<Player>> getPlayerAsync(Long threshold,
+                                                          Supplier<List<Player>> loader) {
+        List<Player> covered = fromLowerThreshold(threshold);
+        if (covered != null) {
+            return CompletableFuture.completedFuture(covered);
+        }
+        return playerCache.get(threshold, () -> loadInitialized(loader),
+                        PlayerCacheService::dependencies)
+                .thenApply(players -> {
+                    cachedThresholds.add(threshold);
+                    return players;
+                });
+    }
+
+    // Кеш готовых ответов: попадание отдаёт байты без маппинга в DTO и сериализации.
+    // Промах собирает выборку обычным путём, с покрытием порогов, и сериализует её один раз
+    public CompletableFuture<JsonBody> getPlayerJsonAsync(
+            Long threshold, Supplier<List<Player>> loader,
+            Function<List<Player>, JsonBody> renderer) {
+        return playerJsonCache.get(threshold, () -> {
+            List<Player> players = getPlayer(threshold, loader);
+            return new TaggedJson(renderer.apply(players), dependencies(players));
+        }, TaggedJson::tags).thenApply(TaggedJson::body);
+    }
+
+    // Точный порог читается обычным путём, чтобы сработал refresh-ahead.
+    // Игрок попадает в выборку, если его максимальная ставка не меньше порога,
+    // поэтому выборка для порога покрывает все большие пороги.
+    private List<Player> fromLowerThreshold(Long threshold) {
+        if (cachedThresholds.contains(threshold)) {
+            return null;
+        }
+        for (Long lower : cachedThresholds.headSet(threshold, false).descendingSet()) {
+            List<Player> players = playerCache.synchronous().get(lower);
+            if (players != null) {
+                return players.stream()
+                        .filter(player -> maxBet(player) >= threshold)
+                        .toList();
+            }
+            cachedThresholds.remove(lower);
+        }
+        return null;
+    }
+
+    // Ставки инициализированы загрузчиком, поэтому максимум считается по кешированной
+    // сущности и не расходится с ней после фоновой перезагрузки
+    private static double maxBet(Player player) {
+        double max = Double.NEGATIVE_INFINITY;
+        for (Bet bet : player.getBets()) {
+            max = Math.max(max, bet.getAmount());
+        }
+        return max;
+    }
+
+    // Фоновая перезагрузка идёт вне транзакции запроса, поэтому ленивые связи,
+    // нужные тегам и маппингу в DTO, инициализируются прямо в загрузчике
+    private List<Player> loadInitialized(Supplier<List<Player>> loader) {
+        return readOnlyTransaction.execute(status -> {
+            List<Player> players = loader.get();
+            for (Player player : players) {
+                Hibernate.initialize(player.getBets());
+                Hibernate.initialize(player.getTournaments());
+            }
+            return players;
+        });
+    }
+
+    // Запись зависит от каждого игрока в выборке и от его турниров
+    private static Set<String> dependencies(List<Player> players) {
+        Set<String> tags = new HashSet<>();
+        for (Player player : players) {
+            tags.add(CacheTags.player(player.getId()));
+            for (Tournament tournament : player.getTournaments()) {
+                tags.add(CacheTags.tournament(tournament.getId()));
+            }
+        }
+        return tags;
+    }
+
+    // Загрузчик возвращает null для несуществующего игрока, такой ответ не кешируется
+    // Кеш хранит собственные экземпляры DTO и отдаёт их копии: вызывающий код
+    // (например, обновление игрока) может менять полученный объект
+    public PlayerDto getPlayerById(Long id, Supplier<PlayerDto> loader) {
+        PlayerDto player = playerByIdCache.get(id, loader, PlayerCacheService::dtoDependencies);
+        return player == null ? null : PlayerMapperUtils.copy(player);
+    }
+
+    // Сквозная запись: после коммита читатели сразу получают новое значение без запроса к БД.
+    // remove перед put сдвигает эпоху инвалидаций, и загрузка, начатая до коммита
+    // со старыми данными, уже не перезапишет новое значение.
+    public void putPlayer(PlayerDto player) {
+        PlayerDto cached = PlayerMapperUtils.copy(player);
+        Set<String> tags = dtoDependencies(cached);
+        AfterCommit.run(() -> {
+            playerByIdCache.remove(cached.getId());
+            playerByIdCache.put(cached.getId(), cached, tags);
+        });
+    }
+
+    // Загрузчик получает только ID, которых нет в кеше, и должен выбрать их одним запросом
+    public Map<Long, PlayerDto> getPlayersById(
+            Collection<Long> ids, Function<Set<Long>, Map<Long, PlayerDto>> loader) {
+        Map<Long, PlayerDto> players =
+                playerByIdCache.getAll(ids, loader, PlayerCacheService::dtoDependencies);
+        Map<Long, PlayerDto> copies = new LinkedHashMap<>();
+        players.forEach((id, player) -> copies.put(id, PlayerMapperUtils.copy(player)));
+        return copies;
+    }
+
+    // DTO игрока содержит его ставки и краткие данные турниров
+    private static Set<String> dtoDependencies(PlayerDto player) {
+        Set<String> tags = new HashSet<>();
+        tags.add(CacheTags.player(player.getId()));
+        for (TournamentInfoDto tournament : player.getTournaments()) {
+            tags.add(CacheTags.tournament(tournament.getId()));
+        }
+        return tags;
+    }
+
+    // Внутри транзакции повторяется после коммита, см. AfterCommit.runNowAndAfterCommit
+    public void invalidate(Collection<String> tags) {
+        Set<String> invalidated = Set.copyOf(tags);
+        AfterCommit.runNowAndAfterCommit(() -> {
+            playerCache.synchronous().invalidateTags(invalidated);
+            playerByIdCache.invalidateTags(invalidated);
+            playerJsonCache.synchronous().invalidateTags(invalidated);
+        });
     }
 
-    public List<Player> getPlayer(Long playerId, Supplier<List<Player>> loader) {
-        return playerCache.get(playerId, loader);
+    // Новая ставка может добавить игрока в выборки с порогом не выше её суммы
+    public void invalidateThresholdsUpTo(double amount) {
+        AfterCommit.runNowAndAfterCommit(() -> {
+            playerCache.synchronous().invalidateKeysUpTo(amount);
+            playerJsonCache.synchronous().invalidateKeysUpTo(amount);
+        });
     }
 
 
     public void clear() {
-        playerCache.clear();
+        cachedThresholds.clear();
+        playerCache.synchronous().clear();
+        playerByIdCache.clear();
+        playerJsonCache.synchronous().clear();
     }
 }
\ No newline at end of file
@@ -0,0 +1,38 @@
+package com.example.demo.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Игроки, созданные до перехода с IDENTITY на последовательность, уже заняли ID,
+ * а новая player_seq начинается с единицы. При старте последовательность сдвигается
+ * за максимальный ID: пул Hibernate берёт ID из (nextval - 50, nextval], поэтому
+ * достаточно setval(max(id)). Повторные запуски ничего не меняют.
+ * Выполняется после создания синглтонов (схема уже обновлена), но до старта веб-сервера:
+ * первый же запрос на создание игрока не должен получить занятый ID.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PlayerIdSequenceAligner implements SmartInitializingSingleton {
+    private static final String ALIGN_SQL = "SELECT setval('player_seq', m) "
+            + "FROM (SELECT MAX(id) AS m FROM player) ids "
+            + "WHERE m >= (SELECT last_value FROM player_seq)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        String database = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                connection.getMetaData().getDatabaseProductName());
+        if (!"PostgreSQL".equals(database)) {
+            return;
+        }
+        jdbcTemplate.queryForList(ALIGN_SQL, Long.class)
+                .forEach(value -> log.info("Moved player_seq past existing id {}", value));
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.demo.service;
+
+import com.example.demo.cache.BloomFilter;
+import com.example.demo.repository.PlayerRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Service;
+
+/**
+ * Фильтр Блума по именам игроков перед запросом турниров по имени: имя, которого
+ * точно нет в БД, отсекается без запроса. Фильтр строится в фоне при старте и
+ * периодически перестраивается — удалённые и переименованные игроки уходят из него
+ * только при перестройке. До первой сборки пропускаются все имена.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PlayerNameFilter {
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+    // Запас на рост таблицы между перестройками
+    private static final int MIN_CAPACITY = 1024;
+    // Имя добавляется до коммита, и транзакция может закоммититься уже после выборки
+    // перестройки. Имена, добавленные за это время до её начала, переносятся в новый фильтр;
+    // окно с запасом покрывает порцию массовой вставки
+    private static final long RECENT_ADD_WINDOW_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private final PlayerRepository playerRepository;
+    private final Environment environment;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("player-name-filter").daemon().factory());
+    private volatile BloomFilter filter;
+    // Имена, добавленные во время перестройки: выборка из БД могла их не увидеть
+    private volatile Queue<String> addedDuringRebuild;
+    // Недавние добавления по времени, старые отбрасываются при каждом добавлении
+    private final ConcurrentLinkedDeque<RecentAdd> recentAdds = new ConcurrentLinkedDeque<>();
+
+    private record RecentAdd(String name, long addedAt) {
+    }
+
+    @PostConstruct
+    public void init() {
+        long interval = environment.getProperty("player.name-filter.rebuild-interval-ms",
+                Long.class, 600_000L);
+        scheduler.scheduleWithFixedDelay(this::rebuild, 0, interval, TimeUnit.MILLISECONDS);
+    }
+
+    public boolean mightContain(String name) {
+        BloomFilter current = filter;
+        return current == null || name == null || current.mightContain(name);
+    }
+
+    // Вызывается до сохранения: ложное «есть» допустимо, ложное «нет» — нет.
+    // После коммита имя добавляется повторно — в тот фильтр, который действует к этому
+    // моменту; без транзакции повтор выполняется сразу, и остаётся окно недавних добавлений
+    public void add(String name) {
+        if (name == null) {
+            return;
+        }
+        long now = System.nanoTime();
+        recentAdds.add(new RecentAdd(name, now));
+        RecentAdd oldest;
+        while ((oldest = recentAdds.peekFirst()) != null
+                && now - oldest.addedAt() > RECENT_ADD_WINDOW_NANOS) {
+            recentAdds.remove(oldest);
+        }
+        put(name);
+        AfterCommit.run(() -> put(name));
+    }
+
+    private void put(String name) {
+        Queue<String> pending = addedDuringRebuild;
+        if (pending != null) {
+            pending.add(name);
+        }
+        BloomFilter current = filter;
+        if (current != null) {
+            current.put(name);
+        }
+    }
+
+    void rebuild() {
+        try {
+            // Очередь открыта до выборки и закрывается после подмены фильтра: добавления
+            // после этой строки попадут в неё, а более ранние — в recentAdds
+            addedDuringRebuild = new ConcurrentLinkedQueue<>();
+            long started = System.nanoTime();
+            List<String> recent = recentAdds.stream()
+                    .filter(added -> started - added.addedAt() <= RECENT_ADD_WINDOW_NANOS)
+                    .map(RecentAdd::name)
+                    .toList();
+            List<String> names = playerRepository.findAllNames();
+            BloomFilter rebuilt = new BloomFilter(
+                    Math.max(MIN_CAPACITY, (names.size() + recent.size()) * 2L),
+                    FALSE_POSITIVE_RATE);
+            names.forEach(rebuilt::put);
+            recent.forEach(rebuilt::put);
+            filter = rebuilt;
+            Queue<String> pending = addedDuringRebuild;
+            addedDuringRebuild = null;
+            pending.forEach(rebuilt::put);
+            log.debug("Player name filter rebuilt with {} names", names.size());
+        } catch (RuntimeException e) {
+            // Старый фильтр остаётся рабочим, следующая попытка — по расписанию
+            addedDuringRebuild = null;
+            log.warn("Failed to rebuild player name filter", e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+}
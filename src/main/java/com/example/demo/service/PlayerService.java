@@ -1,31 +1,56 @@
 package com.example.demo.service;
 
 
+import com.example.demo.cache.CacheTags;
+import com.example.demo.cache.JsonBody;
+import com.example.demo.dto.PageDto;
 import com.example.demo.dto.PlayerDto;
 import com.example.demo.entity.Player;
 import com.example.demo.entity.Tournament;
+import com.example.demo.exception.BadRequestException;
 import com.example.demo.exception.ResourceNotFoundException;
 import com.example.demo.mapper.PlayerMapperUtils;
+import com.example.demo.repository.BetRepository;
 import com.example.demo.repository.PlayerRepository;
 import com.example.demo.repository.TournamentRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.cache.annotation.CacheConfig;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 @CacheConfig(cacheNames = {"players", "playersWithBets"})
 public class PlayerService {
 
     private static final String PLAYER_NOT_FOUND_MESSAGE = "Player not found with id: ";
+    private static final int MAX_IDS_PER_REQUEST = 100;
+    // Кратно hibernate.jdbc.batch_size и шагу последовательности ID игроков
+    // (проверяется в PlayerServiceTest)
+    static final int BULK_CHUNK_SIZE = 20 * Player.ID_ALLOCATION_SIZE;
     private final PlayerRepository playerRepository;
+    private final BetRepository betRepository;
     private final TournamentRepository tournamentRepository;
     private final PlayerCacheService playerCacheService;
     private final TournamentCacheService tournamentCacheService;
+    private final PlayerNameFilter playerNameFilter;
+    private final ObjectMapper objectMapper;
+    private final PlatformTransactionManager transactionManager;
 
     @Transactional
     public List<PlayerDto> findPlayersWithBetsMoreThan(Long bets) {
@@ -36,6 +61,27 @@ public class PlayerService {
                 () -> playerRepository.findPlayersWithBetsGreaterThan(bets)// Ленивая загрузка
         );
 
+        return toPlayersWithBets(bets, result);
+    }
+
+    // Без @Transactional: загрузчик кеша сам открывает транзакцию в своём потоке
+    public CompletableFuture<List<PlayerDto>> findPlayersWithBetsMoreThanAsync(Long bets) {
+        return playerCacheService.getPlayerAsync(
+                bets,
+                () -> playerRepository.findPlayersWithBetsGreaterThan(bets)
+        ).thenApply(result -> toPlayersWithBets(bets, result));
+    }
+
+    // Для контроллера: готовое тело ответа из кеша ответов, без повторной сериализации
+    public CompletableFuture<JsonBody> findPlayersWithBetsMoreThanJsonAsync(Long bets) {
+        return playerCacheService.getPlayerJsonAsync(
+                bets,
+                () -> playerRepository.findPlayersWithBetsGreaterThan(bets),
+                players -> JsonBody.serialize(objectMapper, toPlayersWithBets(bets, players))
+        );
+    }
+
+    private static List<PlayerDto> toPlayersWithBets(Long bets, List<Player> result) {
         if (result.isEmpty()) {
             throw new ResourceNotFoundException(
                         String.format("No players found with bets more than %d", bets)
@@ -43,48 +89,79 @@ public class PlayerService {
         }
 
         return result.stream().map(PlayerMapperUtils::converttodto).toList();
+    }
 
-
-
+    @Transactional(readOnly = true)
+    public PageDto<PlayerDto> getPlayersPage(String cursor, int limit) {
+        List<Long> ids = playerRepository.findIdsAfter(PageCursors.after(cursor),
+                PageCursors.fetchLimit(limit));
+        return PageCursors.page(ids, limit, Long::longValue, pageIds -> List.copyOf(
+                playerCacheService.getPlayersById(pageIds, this::loadPlayersById).values()));
     }
 
-    public List<PlayerDto> getAllPlayers() {
-        return playerRepository.findAll().stream()
-                .map(PlayerMapperUtils::converttodto)
-                .toList();
+    // Несуществующие ID пропускаются, порядок ответа совпадает с порядком ids
+    @Transactional(readOnly = true)
+    public List<PlayerDto> getPlayersByIds(List<Long> ids) {
+        if (ids.size() > MAX_IDS_PER_REQUEST) {
+            throw new BadRequestException(
+                    "No more than " + MAX_IDS_PER_REQUEST + " ids per request");
+        }
+        Map<Long, PlayerDto> players =
+                playerCacheService.getPlayersById(ids, this::loadPlayersById);
+        return List.copyOf(players.values());
     }
 
+    private Map<Long, PlayerDto> loadPlayersById(Set<Long> ids) {
+        return PlayerMapperUtils.assemble(playerRepository.findInfoByIdIn(ids),
+                        betRepository.findDtosByPlayerIdIn(ids),
+                        playerRepository.findTournamentRowsByPlayerIdIn(ids)).stream()
+                .collect(Collectors.toMap(PlayerDto::getId, Function.identity()));
+    }
 
+    @Transactional(readOnly = true)
     public PlayerDto getPlayerById(Long id) {
-        Player player = playerRepository.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException(
-                        PLAYER_NOT_FOUND_MESSAGE + id));
-        return PlayerMapperUtils.converttodto(player);
+        PlayerDto player = playerCacheService.getPlayerById(id,
+                () -> loadPlayersById(Set.of(id)).get(id));
+        if (player == null) {
+            throw new ResourceNotFoundException(PLAYER_NOT_FOUND_MESSAGE + id);
+        }
+        return player;
     }
 
-    @Transactional
+    // Каждая пачка коммитится в своей транзакции: контекст персистентности не растёт
+    // с размером запроса, а при сбое откатывается только текущая пачка, уже закоммиченные
+    // остаются (видно по логу). ID выдаются блоками последовательности, поэтому
+    // INSERT уходят JDBC-батчами (hibernate.jdbc.batch_size)
     public List<PlayerDto> createPlayersBulk(List<PlayerDto> playerDtos) {
 
         if (playerDtos == null || playerDtos.isEmpty()) {
             throw new IllegalArgumentException("Player list cannot be null or empty");
         }
 
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        List<PlayerDto> created = new ArrayList<>(playerDtos.size());
+        for (int from = 0; from < playerDtos.size(); from += BULK_CHUNK_SIZE) {
+            List<PlayerDto> chunk = playerDtos.subList(from,
+                    Math.min(from + BULK_CHUNK_SIZE, playerDtos.size()));
+            created.addAll(transaction.execute(status -> insertPlayers(chunk)));
+            log.info("Bulk insert: {}/{} players committed", created.size(), playerDtos.size());
+        }
+        return created;
+    }
+
+    // Новые игроки без ставок и турниров не меняют закешированные выборки
+    private List<PlayerDto> insertPlayers(List<PlayerDto> playerDtos) {
         List<Player> players = playerDtos.stream()
                 .map(dto -> {
                     Player player = new Player();
+                    playerNameFilter.add(dto.getName());
                     player.setName(dto.getName());
                     player.setBalance(dto.getBalance());
                     return player;
                 })
                 .toList();
 
-        List<Player> savedPlayers = playerRepository.saveAll(players);
-
-        playerCacheService.clear();
-        tournamentCacheService.clear();
-
-
-        return savedPlayers.stream()
+        return playerRepository.saveAll(players).stream()
                 .map(PlayerMapperUtils::converttodto)
                 .toList();
     }
@@ -94,8 +171,8 @@ public class PlayerService {
         Player player = new Player();
         player.setName(playerDto.getName());
         player.setBalance(playerDto.getBalance());
+        playerNameFilter.add(playerDto.getName());
         Player savedPlayer = playerRepository.save(player);
-        playerCacheService.clear();
         return PlayerMapperUtils.converttodto(savedPlayer);
     }
 
@@ -106,12 +183,16 @@ public class PlayerService {
         Player player = playerRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException(
                         PLAYER_NOT_FOUND_MESSAGE + id));
+        String oldName = player.getName();
         player.setName(playerDto.getName());
         player.setBalance(playerDto.getBalance());
+        // Старое имя остаётся в фильтре до перестройки
+        playerNameFilter.add(playerDto.getName());
         Player updatedPlayer = playerRepository.save(player);
-        playerCacheService.clear();
-        tournamentCacheService.clear();
-        return PlayerMapperUtils.converttodto(updatedPlayer);
+        invalidatePlayer(id, oldName, playerDto.getName());
+        PlayerDto updated = PlayerMapperUtils.converttodto(updatedPlayer);
+        playerCacheService.putPlayer(updated);
+        return updated;
     }
 
     @Transactional
@@ -127,11 +208,21 @@ public class PlayerService {
 
         player.getTournaments().clear();
         player.getBets().clear();
-        playerCacheService.clear();
-        tournamentCacheService.clear();
+        // Из фильтра имён удалить нельзя: имя исчезнет из него при следующей перестройке
+        invalidatePlayer(playerId, player.getName());
 
         playerRepository.delete(player);
     }
 
+    private void invalidatePlayer(Long playerId, String... names) {
+        Set<String> tags = new HashSet<>();
+        tags.add(CacheTags.player(playerId));
+        for (String name : names) {
+            tags.add(CacheTags.playerName(name));
+        }
+        playerCacheService.invalidate(tags);
+        tournamentCacheService.invalidate(tags);
+    }
+
 
 }
\ No newline at end of file
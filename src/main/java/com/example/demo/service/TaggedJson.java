@@ -0,0 +1,16 @@
+package com.example.demo.service;
+
+import com.example.demo.cache.JsonBody;
+import com.example.demo.cache.Weigher;
+import java.util.Set;
+
+// Теги считаются по сущностям до сериализации, поэтому хранятся рядом с готовыми байтами
+record TaggedJson(JsonBody body, Set<String> tags) {
+
+    // Служебная часть записи: ключ, ссылки и набор тегов
+    private static final int ENTRY_OVERHEAD = 128;
+
+    static <K> Weigher<K, TaggedJson> weigher() {
+        return (key, value) -> ENTRY_OVERHEAD + value.body().weight();
+    }
+}
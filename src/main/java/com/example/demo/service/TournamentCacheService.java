@@ -1,13 +1,34 @@
 package com.example.demo.service;
 
+import com.example.demo.cache.AsyncTaggedCache;
 import com.example.demo.cache.CacheFactory;
-import com.example.demo.cache.MyCache;
+import com.example.demo.cache.CacheSettings;
+import com.example.demo.cache.CacheTags;
+import com.example.demo.cache.JsonBody;
+import com.example.demo.cache.TaggedCache;
+import com.example.demo.cache.ValueCodec;
+import com.example.demo.cache.Weigher;
+import com.example.demo.cache.codec.TournamentListCodec;
+import com.example.demo.dto.PlayerInfoDto;
+import com.example.demo.dto.TournamentDto;
+import com.example.demo.entity.Player;
 import com.example.demo.entity.Tournament;
+import com.example.demo.mapper.TournamentMapperUtils;
 import jakarta.annotation.PostConstruct;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
 import java.util.function.Supplier;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.Hibernate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 
 
@@ -16,25 +37,165 @@ import org.springframework.stereotype.Service;
 public class TournamentCacheService {
 
 
+    // Грубая оценка занимаемой памяти: список плюс сущность с коллекцией связей
+    private static final long MAX_WEIGHT = 8L * 1024 * 1024;
+    private static final int LIST_WEIGHT = 64;
+    private static final int TOURNAMENT_WEIGHT = 256;
+
+    // Обновляем запись в последнюю минуту TTL, а при сбое БД ещё 5 минут отдаём старую
+    private static final long REFRESH_AHEAD = 60_000;
+    private static final long STALE_IF_ERROR = 300_000;
+    // TTL ключа подстраивается под нагрузку: горячие и редко меняющиеся выборки живут
+    // до 30 минут, часто инвалидируемые — от 2 минут (больше окна перезагрузки)
+    private static final long MIN_TTL = 120_000;
+    private static final long MAX_TTL = 1_800_000;
+    // Порядок числа записей для Count-Min sketch фильтра допуска
+    private static final int EXPECTED_ENTRIES = 1000;
+    // Вытесненные из heap записи хранятся сериализованными вне кучи
+    private static final long OFF_HEAP_BYTES = 32L * 1024 * 1024;
+    // Столько самых востребованных записей переживает рестарт (см. cache.snapshot.dir)
+    private static final int SNAPSHOT_ENTRIES = 500;
+    // Турниры по ID: готовые DTO, по записи на турнир
+    private static final int BY_ID_ENTRIES = 10_000;
+    // Готовые JSON-ответы турниров игрока: бюджет в байтах тел (вместе с gzip-версиями)
+    private static final long JSON_MAX_WEIGHT = 16L * 1024 * 1024;
+
     private final CacheFactory cacheFactory;
-    private MyCache<String, List<Tournament>> playerTournamentsCache;
+    private final PlatformTransactionManager transactionManager;
+    private TransactionTemplate readOnlyTransaction;
+    private AsyncTaggedCache<String, List<Tournament>> playerTournamentsCache;
+    private TaggedCache<Long, TournamentDto> tournamentByIdCache;
+    private AsyncTaggedCache<String, TaggedJson> tournamentJsonCache;
 
     @PostConstruct  // Инициализируем кеш при создании бина
     public void init() {
-        this.playerTournamentsCache = cacheFactory.createCache(
-                "tournamentCache",  // Название кеша
-                1000,          // Максимальный размер (maxSize)
-                300_000        // Время жизни записи (TTL, 5 минут в мс)
-        );
+        TournamentListCodec codec = new TournamentListCodec();
+        CacheSettings<String, List<Tournament>> settings = CacheSettings
+                .<String, List<Tournament>>weighted(
+                        MAX_WEIGHT,    // Бюджет памяти в оценочных байтах
+                        300_000,       // Базовый TTL (5 минут в мс), см. MIN_TTL и MAX_TTL
+                        Weigher.perElement(LIST_WEIGHT, TOURNAMENT_WEIGHT))
+                .withRefreshAhead(REFRESH_AHEAD)
+                .withStaleIfError(STALE_IF_ERROR)
+                .withAdmissionFilter(EXPECTED_ENTRIES)
+                .withAdaptiveTtl(MIN_TTL, MAX_TTL)
+                .withOffHeapTier(OFF_HEAP_BYTES, codec)
+                .withSnapshot(SNAPSHOT_ENTRIES, ValueCodec.strings(), codec);
+        this.playerTournamentsCache = cacheFactory.createAsyncCache("tournamentCache", settings);
+        this.tournamentByIdCache = cacheFactory.createCache("tournamentByIdCache",
+                CacheSettings.<Long, TournamentDto>of(BY_ID_ENTRIES, 300_000)
+                        .withAdmissionFilter(BY_ID_ENTRIES));
+        this.tournamentJsonCache = cacheFactory.createAsyncCache("tournamentJsonCache",
+                CacheSettings.<String, TaggedJson>weighted(JSON_MAX_WEIGHT, 300_000,
+                                TaggedJson.weigher())
+                        .withAdmissionFilter(EXPECTED_ENTRIES));
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
     }
 
     public List<Tournament> getPlayerTournaments(String playerId,
                                                  Supplier<List<Tournament>> loader) {
-        return playerTournamentsCache.get(playerId, loader);
+        return playerTournamentsCache.synchronous().get(playerId,
+                () -> loadInitialized(loader),
+                tournaments -> dependencies(playerId, tournaments));
+    }
+
+    // Загрузчик выполняется в пуле кеша, поток запроса не блокируется
+    public CompletableFuture<List<Tournament>> getPlayerTournamentsAsync(
+            String playerId, Supplier<List<Tournament>> loader) {
+        return playerTournamentsCache.get(playerId, () -> loadInitialized(loader),
+                tournaments -> dependencies(playerId, tournaments));
+    }
+
+    // Кеш готовых ответов: попадание отдаёт байты без маппинга в DTO и сериализации
+    public CompletableFuture<JsonBody> getPlayerTournamentsJsonAsync(
+            String playerId, Supplier<List<Tournament>> loader,
+            Function<List<Tournament>, JsonBody> renderer) {
+        return tournamentJsonCache.get(playerId, () -> {
+            List<Tournament> tournaments = getPlayerTournaments(playerId, loader);
+            return new TaggedJson(renderer.apply(tournaments),
+                    dependencies(playerId, tournaments));
+        }, TaggedJson::tags).thenApply(TaggedJson::body);
+    }
+
+    // Фоновая перезагрузка идёт вне транзакции запроса, поэтому ленивые связи,
+    // нужные тегам и маппингу в DTO, инициализируются прямо в загрузчике
+    private List<Tournament> loadInitialized(Supplier<List<Tournament>> loader) {
+        return readOnlyTransaction.execute(status -> {
+            List<Tournament> tournaments = loader.get();
+            for (Tournament tournament : tournaments) {
+                Hibernate.initialize(tournament.getPlayers());
+            }
+            return tournaments;
+        });
+    }
+
+    // Запись зависит от имени игрока, от турниров и от их участников
+    private static Set<String> dependencies(String playerName, List<Tournament> tournaments) {
+        Set<String> tags = new HashSet<>();
+        tags.add(CacheTags.playerName(playerName));
+        for (Tournament tournament : tournaments) {
+            tags.add(CacheTags.tournament(tournament.getId()));
+            for (Player player : tournament.getPlayers()) {
+                tags.add(CacheTags.player(player.getId()));
+            }
+        }
+        return tags;
+    }
+
+    // Загрузчик возвращает null для несуществующего турнира, такой ответ не кешируется
+    // Отдаются копии, как в PlayerCacheService.getPlayerById
+    public TournamentDto getTournamentById(Long id, Supplier<TournamentDto> loader) {
+        TournamentDto tournament = tournamentByIdCache.get(id, loader,
+                TournamentCacheService::dtoDependencies);
+        return tournament == null ? null : TournamentMapperUtils.copy(tournament);
+    }
+
+    // Сквозная запись после коммита, как у PlayerCacheService.putPlayer
+    public void putTournament(TournamentDto tournament) {
+        TournamentDto cached = TournamentMapperUtils.copy(tournament);
+        Set<String> tags = dtoDependencies(cached);
+        AfterCommit.run(() -> {
+            tournamentByIdCache.remove(cached.getId());
+            tournamentByIdCache.put(cached.getId(), cached, tags);
+        });
+    }
+
+    // Загрузчик получает только ID, которых нет в кеше, и должен выбрать их одним запросом
+    public Map<Long, TournamentDto> getTournamentsById(
+            Collection<Long> ids, Function<Set<Long>, Map<Long, TournamentDto>> loader) {
+        Map<Long, TournamentDto> tournaments =
+                tournamentByIdCache.getAll(ids, loader, TournamentCacheService::dtoDependencies);
+        Map<Long, TournamentDto> copies = new LinkedHashMap<>();
+        tournaments.forEach((id, tournament) ->
+                copies.put(id, TournamentMapperUtils.copy(tournament)));
+        return copies;
+    }
+
+    // DTO турнира содержит краткие данные его участников
+    private static Set<String> dtoDependencies(TournamentDto tournament) {
+        Set<String> tags = new HashSet<>();
+        tags.add(CacheTags.tournament(tournament.getId()));
+        for (PlayerInfoDto player : tournament.getPlayers()) {
+            tags.add(CacheTags.player(player.getId()));
+        }
+        return tags;
+    }
+
+    // Внутри транзакции повторяется после коммита, см. AfterCommit.runNowAndAfterCommit
+    public void invalidate(Collection<String> tags) {
+        Set<String> invalidated = Set.copyOf(tags);
+        AfterCommit.runNowAndAfterCommit(() -> {
+            playerTournamentsCache.synchronous().invalidateTags(invalidated);
+            tournamentByIdCache.invalidateTags(invalidated);
+            tournamentJsonCache.synchronous().invalidateTags(invalidated);
+        });
     }
 
 
     public void clear() {
-        playerTournamentsCache.clear();
+        playerTournamentsCache.synchronous().clear();
+        tournamentByIdCache.clear();
+        tournamentJsonCache.synchronous().clear();
     }
 }
\ No newline at end of file
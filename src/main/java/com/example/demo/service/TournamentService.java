@@ -1,15 +1,25 @@
 package com.example.demo.service;
 
 
+import com.example.demo.cache.CacheTags;
+import com.example.demo.cache.JsonBody;
+import com.example.demo.dto.PageDto;
 import com.example.demo.dto.TournamentDto;
 import com.example.demo.entity.Player;
 import com.example.demo.entity.Tournament;
 import com.example.demo.exception.BadRequestException;
 import com.example.demo.exception.ResourceNotFoundException;
+import com.example.demo.mapper.PlayerMapperUtils;
 import com.example.demo.mapper.TournamentMapperUtils;
 import com.example.demo.repository.PlayerRepository;
 import com.example.demo.repository.TournamentRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.log4j.Log4j2;
 import org.springframework.stereotype.Service;
@@ -21,12 +31,17 @@ import org.springframework.transaction.annotation.Transactional;
 public class TournamentService {
 
     private static final String TOURNAMENT_NOT_FOUND_MESSAGE = "Tournament not found with id: ";
+    private static final int MAX_IDS_PER_REQUEST = 100;
     private final TournamentRepository tournamentRepository;
     private final PlayerRepository playerRepository;
     private final TournamentCacheService tournamentCacheService;
+    private final PlayerCacheService playerCacheService;
+    private final PlayerNameFilter playerNameFilter;
+    private final ObjectMapper objectMapper;
 
     @Transactional
     public List<TournamentDto> getTournamentsByPlayerName(String name) {
+        requireKnownPlayerName(name);
 
         List<Tournament> tournaments = tournamentCacheService.getPlayerTournaments(
                 name,
@@ -34,6 +49,39 @@ public class TournamentService {
         );
 
 
+        return toPlayerTournaments(name, tournaments);
+    }
+
+    // Без @Transactional: загрузчик кеша сам открывает транзакцию в своём потоке
+    public CompletableFuture<List<TournamentDto>> getTournamentsByPlayerNameAsync(String name) {
+        requireKnownPlayerName(name);
+        return tournamentCacheService.getPlayerTournamentsAsync(
+                name,
+                () -> tournamentRepository.findTournamentsByName(name)
+        ).thenApply(tournaments -> toPlayerTournaments(name, tournaments));
+    }
+
+    // Для контроллера: готовое тело ответа из кеша ответов, без повторной сериализации
+    public CompletableFuture<JsonBody> getTournamentsByPlayerNameJsonAsync(String name) {
+        requireKnownPlayerName(name);
+        return tournamentCacheService.getPlayerTournamentsJsonAsync(
+                name,
+                () -> tournamentRepository.findTournamentsByName(name),
+                tournaments -> JsonBody.serialize(objectMapper,
+                        toPlayerTournaments(name, tournaments))
+        );
+    }
+
+    // Имя, которого точно нет среди игроков, не доходит ни до кеша, ни до БД
+    private void requireKnownPlayerName(String name) {
+        if (!playerNameFilter.mightContain(name)) {
+            throw new ResourceNotFoundException(
+                    "No tournaments found for player with name: " + name);
+        }
+    }
+
+    private static List<TournamentDto> toPlayerTournaments(String name,
+                                                           List<Tournament> tournaments) {
         if (tournaments.isEmpty()) {
             throw new ResourceNotFoundException(
                         "No tournaments found for player with name: " + name);
@@ -42,22 +90,44 @@ public class TournamentService {
         return tournaments.stream()
                 .map(TournamentMapperUtils::converttodto)
                 .toList();
+    }
 
+    @Transactional(readOnly = true)
+    public PageDto<TournamentDto> getTournamentsPage(String cursor, int limit) {
+        List<Long> ids = tournamentRepository.findIdsAfter(PageCursors.after(cursor),
+                PageCursors.fetchLimit(limit));
+        return PageCursors.page(ids, limit, Long::longValue, pageIds -> List.copyOf(
+                tournamentCacheService.getTournamentsById(pageIds, this::loadTournamentsById)
+                        .values()));
+    }
 
+    // Несуществующие ID пропускаются, порядок ответа совпадает с порядком ids
+    @Transactional(readOnly = true)
+    public List<TournamentDto> getTournamentsByIds(List<Long> ids) {
+        if (ids.size() > MAX_IDS_PER_REQUEST) {
+            throw new BadRequestException(
+                    "No more than " + MAX_IDS_PER_REQUEST + " ids per request");
+        }
+        Map<Long, TournamentDto> tournaments =
+                tournamentCacheService.getTournamentsById(ids, this::loadTournamentsById);
+        return List.copyOf(tournaments.values());
     }
 
-    public List<TournamentDto> getAllTournaments() {
-        return tournamentRepository.findAll().stream()
-                .map(TournamentMapperUtils::converttodto)
-                .toList();
+    private Map<Long, TournamentDto> loadTournamentsById(Set<Long> ids) {
+        return TournamentMapperUtils.assemble(tournamentRepository.findInfoByIdIn(ids),
+                        tournamentRepository.findPlayerRowsByTournamentIdIn(ids)).stream()
+                .collect(Collectors.toMap(TournamentDto::getId, Function.identity()));
     }
 
     // Получить турнир по ID
+    @Transactional(readOnly = true)
     public TournamentDto getTournamentById(Long id) {
-        Tournament tournament = tournamentRepository.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException(
-                        TOURNAMENT_NOT_FOUND_MESSAGE + id));
-        return TournamentMapperUtils.converttodto(tournament);
+        TournamentDto tournament = tournamentCacheService.getTournamentById(id,
+                () -> loadTournamentsById(Set.of(id)).get(id));
+        if (tournament == null) {
+            throw new ResourceNotFoundException(TOURNAMENT_NOT_FOUND_MESSAGE + id);
+        }
+        return tournament;
     }
 
     // Создать новый турнир
@@ -95,9 +165,11 @@ public class TournamentService {
                         TOURNAMENT_NOT_FOUND_MESSAGE + id));
         tournament.setName(tournamentDto.getName());
         tournament.setPrizePool(tournamentDto.getPrizePool());
-        tournamentCacheService.clear();
+        invalidateTournament(id);
         Tournament updatedTournament = tournamentRepository.save(tournament);
-        return TournamentMapperUtils.converttodto(updatedTournament);
+        TournamentDto updated = TournamentMapperUtils.converttodto(updatedTournament);
+        tournamentCacheService.putTournament(updated);
+        return updated;
     }
 
     // Удалить турнир
@@ -115,7 +187,7 @@ public class TournamentService {
             player.getTournaments().remove(tournament);
         }
         tournament.getPlayers().clear();
-        tournamentCacheService.clear();
+        invalidateTournament(tournamentId);
         tournamentRepository.delete(tournament);
     }
 
@@ -136,13 +208,11 @@ public class TournamentService {
         tournament.getPlayers().add(player);
         player.getTournaments().add(tournament);
 
-        tournamentCacheService.clear();
+        invalidateRegistration(tournamentId, player);
         tournamentRepository.save(tournament);
         playerRepository.save(player);
 
-
-
-        return TournamentMapperUtils.converttodto(tournament);
+        return putRegistration(tournament, player);
     }
 
     @Transactional
@@ -161,12 +231,32 @@ public class TournamentService {
         tournament.getPlayers().remove(player);
         player.getTournaments().remove(tournament);
 
-        tournamentCacheService.clear();
+        invalidateRegistration(tournamentId, player);
         tournamentRepository.save(tournament);
         playerRepository.save(player);
 
+        return putRegistration(tournament, player);
+    }
 
+    // Название и фонд турнира видны в составах турниров и в турнирах игроков
+    private void invalidateTournament(Long tournamentId) {
+        Set<String> tags = Set.of(CacheTags.tournament(tournamentId));
+        tournamentCacheService.invalidate(tags);
+        playerCacheService.invalidate(tags);
+    }
+
+    // Обе стороны связи уже изменены в памяти — кладём их в кеши по ID вместо повторной загрузки
+    private TournamentDto putRegistration(Tournament tournament, Player player) {
+        TournamentDto dto = TournamentMapperUtils.converttodto(tournament);
+        tournamentCacheService.putTournament(dto);
+        playerCacheService.putPlayer(PlayerMapperUtils.converttodto(player));
+        return dto;
+    }
 
-        return TournamentMapperUtils.converttodto(tournament);
+    private void invalidateRegistration(Long tournamentId, Player player) {
+        tournamentCacheService.invalidate(Set.of(
+                CacheTags.tournament(tournamentId),
+                CacheTags.playerName(player.getName())));
+        playerCacheService.invalidate(Set.of(CacheTags.player(player.getId())));
     }
-}
\ No newline at end of file
+}
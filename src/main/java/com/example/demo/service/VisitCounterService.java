@@ -1,18 +1,45 @@
 package com.example.demo.service;
 
+import com.example.demo.entity.VisitCount;
+import com.example.demo.repository.VisitCountRepository;
+import jakarta.annotation.PreDestroy;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.env.Environment;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+@Slf4j
 @Service
+@RequiredArgsConstructor
 public class VisitCounterService {
 
+    // Различных URL с параметрами не больше этого: перебор параметров не раздувает память
+    private static final int MAX_TRACKED_QUERIES = 10_000;
+    // Длина первичного ключа visit_counts.url
+    private static final int MAX_URL_LENGTH = 255;
+    // Счётчики прошлого запуска делятся на это число при каждом рестарте: URL, который
+    // перестали запрашивать, через несколько запусков уходит из истории прогрева
+    private static final long HISTORY_DECAY = 2;
+
+    private final VisitCountRepository visitCountRepository;
+    private final Environment environment;
+    private final PlatformTransactionManager transactionManager;
+
     private final AtomicLong totalVisits = new AtomicLong(0);
 
     private final ConcurrentHashMap<String, AtomicLong> urlCounters = new ConcurrentHashMap<>();
 
+    // URL вместе с параметрами запроса: по ним после рестарта прогреваются кеши
+    private final ConcurrentHashMap<String, AtomicLong> queryCounters = new ConcurrentHashMap<>();
+
     public void incrementCount(String url) {
 
         totalVisits.incrementAndGet();
@@ -26,6 +53,20 @@ public class VisitCounterService {
         });
     }
 
+    public void incrementQueryCount(String url) {
+        if (url.length() > MAX_URL_LENGTH) {
+            return;
+        }
+        AtomicLong counter = queryCounters.get(url);
+        if (counter == null) {
+            if (queryCounters.size() >= MAX_TRACKED_QUERIES) {
+                return;
+            }
+            counter = queryCounters.computeIfAbsent(url, key -> new AtomicLong());
+        }
+        counter.incrementAndGet();
+    }
+
     public int getVisitCount(String url) {
         return urlCounters.getOrDefault(url, new AtomicLong(0)).intValue();
     }
@@ -41,4 +82,44 @@ public class VisitCounterService {
                         e -> e.getValue().intValue()
                 ));
     }
-}
\ No newline at end of file
+
+    // Самые посещаемые URL прошлого запуска, по убыванию; их затухающие счётчики
+    // копятся дальше, чтобы история не терялась после рестарта без трафика
+    public List<String> restoreHistory() {
+        List<VisitCount> saved = visitCountRepository.findAll().stream()
+                .filter(visit -> visit.getCount().get() >= HISTORY_DECAY)
+                .sorted(Comparator.comparingLong((VisitCount visit) -> visit.getCount().get())
+                        .reversed())
+                .toList();
+        for (VisitCount visit : saved) {
+            queryCounters.computeIfAbsent(visit.getUrl(), key -> new AtomicLong())
+                    .addAndGet(visit.getCount().get() / HISTORY_DECAY);
+        }
+        return saved.stream()
+                .map(VisitCount::getUrl)
+                .toList();
+    }
+
+    // Сохраняются только самые посещаемые URL: столько, сколько прогревается при старте
+    @PreDestroy
+    public void saveHistory() {
+        int limit = environment.getProperty("cache.warmup.top-n", Integer.class, 200);
+        List<VisitCount> top = queryCounters.entrySet().stream()
+                .sorted(Map.Entry.<String, AtomicLong>comparingByValue(
+                        Comparator.comparingLong(AtomicLong::get)).reversed())
+                .limit(limit)
+                .map(e -> new VisitCount(e.getKey(), new AtomicLong(e.getValue().get())))
+                .toList();
+        try {
+            // Без транзакции сбой saveAll оставил бы таблицу пустой: историю заменяем целиком.
+            // @Transactional не сработает — @PreDestroy вызывается в обход прокси
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                visitCountRepository.deleteAllInBatch();
+                visitCountRepository.saveAll(top);
+            });
+            log.info("Saved {} most visited URLs for cache warm-up", top.size());
+        } catch (RuntimeException e) {
+            log.warn("Failed to save visit history", e);
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.demo.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AsyncTaggedCacheTest {
+
+    @Test
+    void testHitCompletesWithoutExecutor() {
+        MyCache<String, String> cache = new MyCache<>("test", 10, 60_000);
+        cache.put("a", "1");
+        AsyncTaggedCache<String, String> async = new AsyncTaggedCache<>(cache, task -> {
+            throw new AssertionError("executor must not be used on a hit");
+        });
+
+        CompletableFuture<String> result = async.get("a", () -> "2");
+
+        assertTrue(result.isDone());
+        assertEquals("1", result.join());
+    }
+
+    @Test
+    void testHitInRefreshWindowStartsBackgroundReload() {
+        MyCache<String, String> cache = new MyCache<>("test", 10, 60_000);
+        cache.setRefreshAhead(30_000, Runnable::run);
+        cache.put("a", "old", 10_000);
+        AsyncTaggedCache<String, String> async = new AsyncTaggedCache<>(cache, task -> {
+            throw new AssertionError("executor must not be used on a hit");
+        });
+
+        CompletableFuture<String> result = async.get("a", () -> "new",
+                value -> Set.of("player:1"));
+
+        assertEquals("old", result.join());
+        assertEquals("new", cache.get("a"));
+        cache.invalidateTag("player:1");
+        assertNull(cache.get("a"));
+    }
+
+    @Test
+    void testConcurrentMissesShareOneFuture() throws InterruptedException {
+        MyCache<String, String> cache = new MyCache<>("test", 10, 60_000);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger loads = new AtomicInteger();
+        try {
+            AsyncTaggedCache<String, String> async = new AsyncTaggedCache<>(cache, executor);
+            CompletableFuture<String> first = async.get("a", () -> {
+                loads.incrementAndGet();
+                awaitQuietly(release);
+                return "value";
+            }, value -> Set.of("player:1"));
+            CompletableFuture<String> second = async.get("a", () -> {
+                loads.incrementAndGet();
+                return "other";
+            });
+            release.countDown();
+
+            assertEquals("value", first.join());
+            assertEquals("value", second.join());
+            assertEquals(1, loads.get());
+
+            cache.invalidateTag("player:1");
+            assertNull(cache.get("a"));
+        } finally {
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    void testLoaderFailureCompletesFutureExceptionally() {
+        MyCache<String, String> cache = new MyCache<>("test", 10, 60_000);
+        AsyncTaggedCache<String, String> async = new AsyncTaggedCache<>(cache, Runnable::run);
+
+        CompletableFuture<String> result = async.get("a", () -> {
+            throw new IllegalStateException("db down");
+        });
+
+        CompletionException e = assertThrows(CompletionException.class, result::join);
+        assertInstanceOf(IllegalStateException.class, e.getCause());
+        assertEquals("retry", async.get("a", () -> "retry").join());
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
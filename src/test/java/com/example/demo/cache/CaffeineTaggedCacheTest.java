@@ -0,0 +1,116 @@
+package com.example.demo.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CaffeineTaggedCacheTest {
+
+    private static <K, V> CaffeineTaggedCache<K, V> cache(CacheSettings<K, V> settings) {
+        return new CaffeineTaggedCache<>("test", settings, Runnable::run);
+    }
+
+    @Test
+    void testSettingsRejectTimeoutThatMyCacheRejects() {
+        assertThrows(IllegalArgumentException.class, () -> CacheSettings.of(10, 5_000));
+        assertThrows(IllegalArgumentException.class,
+                () -> new MyCache<Long, String>("test", 10, 5_000, null));
+    }
+
+    @Test
+    void testLoaderResultIsCachedAndTagged() {
+        CaffeineTaggedCache<Long, String> cache = cache(CacheSettings.of(10, 60_000));
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.get(100L, () -> "v" + loads.incrementAndGet(), value -> Set.of("player:1"));
+        assertEquals("v1", cache.get(100L, () -> "v" + loads.incrementAndGet()));
+
+        cache.invalidateTag("player:1");
+        assertNull(cache.get(100L));
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void testLoadSurvivesInvalidationOfUnrelatedTag() {
+        CaffeineTaggedCache<Long, String> cache = cache(CacheSettings.of(10, 60_000));
+
+        cache.get(100L, () -> {
+            cache.invalidateTag("player:2");
+            return "players";
+        }, value -> Set.of("player:1"));
+        cache.get(200L, () -> {
+            cache.invalidateTag("player:2");
+            return "stale";
+        }, value -> Set.of("player:2"));
+
+        assertEquals("players", cache.get(100L));
+        assertNull(cache.get(200L));
+    }
+
+    @Test
+    void testGetAllLoadsOnlyMissingKeys() {
+        CaffeineTaggedCache<Integer, String> cache = cache(CacheSettings.of(10, 60_000));
+        cache.put(1, "cached");
+
+        Map<Integer, String> result = cache.getAll(List.of(2, 1), keys -> {
+            assertEquals(Set.of(2), keys);
+            return Map.of(2, "loaded");
+        }, value -> Set.of("player:2"));
+
+        assertEquals(Map.of(1, "cached", 2, "loaded"), result);
+        assertEquals(List.of(2, 1), List.copyOf(result.keySet()));
+        cache.invalidateTag("player:2");
+        assertNull(cache.get(2));
+    }
+
+    @Test
+    void testReplacedEntryDropsOldTags() {
+        CaffeineTaggedCache<String, String> cache = cache(CacheSettings.of(10, 60_000));
+        cache.put("a", "old", Set.of("player:1"));
+        cache.put("a", "new", Set.of("player:2"));
+
+        cache.invalidateTag("player:1");
+
+        assertEquals("new", cache.get("a"));
+    }
+
+    @Test
+    void testLoaderFailureWithoutStaleValueIsRethrown() {
+        CaffeineTaggedCache<String, String> cache = cache(CacheSettings.of(10, 60_000));
+
+        assertThrows(IllegalStateException.class, () -> cache.get("a", () -> {
+            throw new IllegalStateException("db down");
+        }));
+        assertEquals("retry", cache.get("a", () -> "retry"));
+        assertEquals(1, cache.getStats().loadFailures());
+    }
+
+    @Test
+    void testWeightedSizeIsReported() {
+        CaffeineTaggedCache<Integer, List<Integer>> cache = cache(
+                CacheSettings.weighted(1000, 60_000, Weigher.perElement(1, 10)));
+        cache.put(1, List.of(1, 2));
+        cache.put(2, List.of(1, 2, 3));
+        cache.cleanUp();
+
+        assertEquals(52, cache.weightedSize());
+        assertEquals(1000, cache.getStats().maxWeight());
+    }
+
+    @Test
+    void testInvalidateIfRemovesMatchingKeys() {
+        CaffeineTaggedCache<Long, String> cache = cache(CacheSettings.of(10, 60_000));
+        cache.put(50L, "a");
+        cache.put(150L, "b");
+
+        cache.invalidateIf(threshold -> threshold <= 100);
+
+        assertNull(cache.get(50L));
+        assertEquals("b", cache.get(150L));
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.demo.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HierarchicalTimingWheelTest {
+
+    private static final long TICK = 10;
+
+    private static final class TestTimer extends ExpiryTimer {
+        long firedAt = -1;
+        boolean cancelled;
+
+        TestTimer(long expiryTime) {
+            super(expiryTime);
+        }
+
+        @Override
+        boolean isCancelled() {
+            return cancelled;
+        }
+
+        @Override
+        boolean expire() {
+            return true;
+        }
+    }
+
+    @Test
+    void testTimersFireWithinOneTickAfterDeadline() {
+        HierarchicalTimingWheel wheel = new HierarchicalTimingWheel(TICK, 0);
+        Random random = new Random(42);
+        List<TestTimer> timers = new ArrayList<>();
+        // Разброс сроков задевает все уровни колеса
+        for (int i = 0; i < 5_000; i++) {
+            TestTimer timer = new TestTimer(1 + (long) (random.nextDouble() * TICK * 300_000));
+            timers.add(timer);
+            wheel.add(timer);
+        }
+
+        for (long now = 0; now <= TICK * 300_001; now += TICK * 7) {
+            long time = now;
+            wheel.advance(now, timer -> ((TestTimer) timer).firedAt = time);
+        }
+
+        for (TestTimer timer : timers) {
+            assertTrue(timer.firedAt >= timer.expiryTime, "fired before deadline");
+            assertTrue(timer.firedAt < timer.expiryTime + TICK * 8, "fired too late");
+        }
+    }
+
+    @Test
+    void testCancelledTimerIsSkipped() {
+        HierarchicalTimingWheel wheel = new HierarchicalTimingWheel(TICK, 0);
+        TestTimer timer = new TestTimer(5_000);
+        wheel.add(timer);
+        timer.cancelled = true;
+
+        wheel.advance(10_000, t -> fail("cancelled timer fired"));
+
+        assertEquals(-1, timer.firedAt);
+    }
+
+    @Test
+    void testOverdueTimerFiresOnNextTick() {
+        HierarchicalTimingWheel wheel = new HierarchicalTimingWheel(TICK, 1_000);
+        TestTimer timer = new TestTimer(500);
+        wheel.add(timer);
+
+        wheel.advance(1_000 + TICK, t -> ((TestTimer) t).firedAt = 1_000 + TICK);
+
+        assertEquals(1_000 + TICK, timer.firedAt);
+    }
+}
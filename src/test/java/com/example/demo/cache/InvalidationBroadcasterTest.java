@@ -0,0 +1,144 @@
+package com.example.demo.cache;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InvalidationBroadcasterTest {
+
+    private LoopbackInvalidationBus bus;
+    // Длинное окно пакета: тест сам вызывает flush
+    private InvalidationBroadcaster nodeA;
+    private InvalidationBroadcaster nodeB;
+    private TaggedCache<Long, String> cacheA;
+    private TaggedCache<Long, String> cacheB;
+
+    @BeforeEach
+    void setUp() {
+        bus = new LoopbackInvalidationBus();
+        nodeA = new InvalidationBroadcaster(bus, 60_000);
+        nodeB = new InvalidationBroadcaster(bus, 60_000);
+        cacheA = nodeA.register(new MyCache<>("players", 100, 60_000));
+        cacheB = nodeB.register(new MyCache<>("players", 100, 60_000));
+    }
+
+    @AfterEach
+    void tearDown() {
+        nodeA.close();
+        nodeB.close();
+    }
+
+    @Test
+    void testRemovedKeyAndTagReachOtherNode() {
+        cacheB.put(1L, "one");
+        cacheB.put(2L, "two", Set.of("player:2"));
+        cacheB.put(3L, "three");
+
+        cacheA.remove(1L);
+        cacheA.invalidateTag("player:2");
+        assertEquals("one", cacheB.get(1L));
+
+        nodeA.flush();
+
+        assertNull(cacheB.get(1L));
+        assertNull(cacheB.get(2L));
+        assertEquals("three", cacheB.get(3L));
+    }
+
+    @Test
+    void testInvalidationsAreCoalescedPerCache() {
+        List<InvalidationMessage> sent = new CopyOnWriteArrayList<>();
+        bus.subscribe(sent::add);
+
+        cacheA.remove(1L);
+        cacheA.remove(1L);
+        cacheA.invalidateTags(Set.of("player:2", "tournament:3"));
+        nodeA.flush();
+
+        assertEquals(1, sent.size());
+        assertEquals(Set.of("L:1"), sent.get(0).keys());
+        assertEquals(Set.of("player:2", "tournament:3"), sent.get(0).tags());
+
+        // Очистка поглощает накопленные ключи
+        cacheA.remove(4L);
+        cacheA.invalidateIf(key -> key > 10);
+        nodeA.flush();
+
+        assertEquals(2, sent.size());
+        assertTrue(sent.get(1).clear());
+        assertTrue(sent.get(1).keys().isEmpty());
+    }
+
+    @Test
+    void testThresholdBoundIsSentInsteadOfClear() {
+        List<InvalidationMessage> sent = new CopyOnWriteArrayList<>();
+        bus.subscribe(sent::add);
+        cacheB.put(50L, "low");
+        cacheB.put(150L, "high");
+
+        cacheA.invalidateKeysUpTo(40);
+        cacheA.invalidateKeysUpTo(100);
+        nodeA.flush();
+
+        assertEquals(1, sent.size());
+        assertFalse(sent.get(0).clear());
+        assertEquals(100.0, sent.get(0).keysUpTo());
+        assertNull(cacheB.get(50L));
+        assertEquals("high", cacheB.get(150L));
+    }
+
+    @Test
+    void testStringKeyIsRemovedByKey() {
+        TaggedCache<String, String> namesA = nodeA.register(new MyCache<>("names", 100, 60_000));
+        TaggedCache<String, String> namesB = nodeB.register(new MyCache<>("names", 100, 60_000));
+        namesB.put("John", "one");
+        namesB.put("Jane", "two");
+
+        namesA.remove("John");
+        nodeA.flush();
+
+        assertNull(namesB.get("John"));
+        assertEquals("two", namesB.get("Jane"));
+    }
+
+    @Test
+    void testInvalidationInTransactionIsSentOnlyAfterCommit() {
+        List<InvalidationMessage> sent = new CopyOnWriteArrayList<>();
+        bus.subscribe(sent::add);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            cacheA.invalidateTag("player:2");
+            nodeA.flush();
+            assertTrue(sent.isEmpty());
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(synchronization ->
+                    synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        nodeA.flush();
+
+        assertEquals(1, sent.size());
+        assertEquals(Set.of("player:2"), sent.get(0).tags());
+    }
+
+    @Test
+    void testRemoteInvalidationIsNotBroadcastBack() {
+        List<InvalidationMessage> sent = new CopyOnWriteArrayList<>();
+        bus.subscribe(sent::add);
+
+        cacheA.clear();
+        nodeA.flush();
+        nodeB.flush();
+
+        assertEquals(1, sent.size());
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.demo.cache;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Сравнение пропускной способности {@link MyCache} и прежней схемы
+ * {@code Collections.synchronizedMap(LinkedHashMap)} при росте числа потоков.
+ * Запуск: {@code java -cp target/classes:target/test-classes:$(mvn -q dependency:build-classpath
+ * -Dmdep.outputFile=/dev/stdout)
+ * com.example.demo.cache.MyCacheScalingBenchmark [секунд на замер]}.
+ */
+public final class MyCacheScalingBenchmark {
+    private static final int MAX_SIZE = 1000;
+    private static final int KEY_SPACE = 2000;
+    private static final int WRITE_PERCENT = 5;
+
+    private MyCacheScalingBenchmark() {
+    }
+
+    interface Target {
+        Integer get(Integer key);
+
+        void put(Integer key, Integer value);
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        long seconds = args.length > 0 ? Long.parseLong(args[0]) : 2;
+        int maxThreads = Runtime.getRuntime().availableProcessors() * 2;
+
+        System.out.printf("%-8s %18s %18s%n", "threads", "synchronizedMap", "MyCache");
+        for (int threads = 1; threads <= maxThreads; threads *= 2) {
+            double locked = run(threads, seconds, MyCacheScalingBenchmark::synchronizedLru);
+            double striped = run(threads, seconds, MyCacheScalingBenchmark::myCache);
+            System.out.printf("%-8d %15.0f/s %15.0f/s%n", threads, locked, striped);
+        }
+        System.exit(0);
+    }
+
+    private static double run(int threads, long seconds, Supplier<Target> factory)
+            throws InterruptedException {
+        Target target = factory.get();
+        for (int i = 0; i < MAX_SIZE; i++) {
+            target.put(i, i);
+        }
+
+        LongAdder ops = new LongAdder();
+        CountDownLatch start = new CountDownLatch(1);
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            workers[t] = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                awaitQuietly(start);
+                long local = 0;
+                while ((local & 1023) != 0 || System.nanoTime() < deadline) {
+                    // Перекос к «горячим» ключам, как у запросов /players/bets
+                    int key = (int) (Math.abs(random.nextGaussian()) * KEY_SPACE / 4) % KEY_SPACE;
+                    if (random.nextInt(100) < WRITE_PERCENT || target.get(key) == null) {
+                        target.put(key, key);
+                    }
+                    local++;
+                }
+                ops.add(local);
+            });
+            workers[t].start();
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        return ops.sum() / (double) seconds;
+    }
+
+    private static Target myCache() {
+        MyCache<Integer, Integer> cache = new MyCache<>("benchmark", MAX_SIZE, 600_000);
+        return new Target() {
+            @Override
+            public Integer get(Integer key) {
+                return cache.get(key);
+            }
+
+            @Override
+            public void put(Integer key, Integer value) {
+                cache.put(key, value);
+            }
+        };
+    }
+
+    private static Target synchronizedLru() {
+        Map<Integer, Integer> map = Collections.synchronizedMap(
+                new LinkedHashMap<>(MAX_SIZE, 0.75f, true) {
+                    @Override
+                    protected boolean removeEldestEntry(Map.Entry<Integer, Integer> eldest) {
+                        return size() > MAX_SIZE;
+                    }
+                });
+        return new Target() {
+            @Override
+            public Integer get(Integer key) {
+                return map.get(key);
+            }
+
+            @Override
+            public void put(Integer key, Integer value) {
+                map.put(key, value);
+            }
+        };
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,586 @@
+package com.example.demo.cache;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MyCacheTest {
+
+    @Test
+    void testPutAndGet() {
+        MyCache<String, String> cache = new MyCache<>("test", 10, 60_000);
+        cache.put("a", "1");
+
+        assertEquals("1", cache.get("a"));
+        assertNull(cache.get("b"));
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    void testExpiredEntryIsNotReturned() {
+        MyCache<String, String> cache = new MyCache<>("test", 10, 60_000);
+        cache.put("a", "1", -1);
+
+        assertNull(cache.get("a"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void testSizeNeverExceedsMaxSize() {
+        MyCache<Integer, Integer> cache = new MyCache<>("test", 1000, 60_000);
+        for (int i = 0; i < 10_000; i++) {
+            cache.put(i, i);
+        }
+
+        assertEquals(1000, cache.size());
+    }
+
+    @Test
+    void testWeightedSizeNeverExceedsMaxWeight() {
+        MyCache<Integer, List<Integer>> cache = new MyCache<>("test", 1000, 60_000,
+                Weigher.perElement(1, 10), null);
+        for (int i = 0; i < 1000; i++) {
+            cache.put(i, List.of(i, i, i, i));
+        }
+
+        assertTrue(cache.weightedSize() <= 1000);
+        assertEquals(cache.size() * 41L, cache.weightedSize());
+        assertEquals(cache.weightedSize(), cache.getStats().weightedSize());
+    }
+
+    @Test
+    void testEntryHeavierThanBudgetIsNotCached() {
+        MyCache<String, List<Integer>> cache = new MyCache<>("test", 10, 60_000,
+                Weigher.perElement(0, 1), null);
+        cache.put("a", List.of(1));
+        cache.put("a", List.of(1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11));
+
+        assertNull(cache.get("a"));
+        assertEquals(0, cache.weightedSize());
+        assertEquals(1, cache.getStats().removals().get(RemovalCause.REJECTED));
+    }
+
+    @Test
+    void testRecentlyReadEntrySurvivesEviction() {
+        MyCache<Integer, Integer> cache = new MyCache<>("test", 3, 60_000);
+        cache.put(1, 1);
+        cache.put(2, 2);
+        cache.put(3, 3);
+
+        // Обращение выставляет бит CLOCK, и вытесняется следующая запись
+        cache.get(1);
+        cache.put(4, 4);
+
+        assertEquals(1, cache.get(1));
+        assertNull(cache.get(2));
+        assertEquals(4, cache.get(4));
+    }
+
+    @Test
+    void testAdmissionFilterKeepsHotEntriesDuringScan() {
+        MyCache<Integer, Integer> cache = new MyCache<>("test", 100, 60_000);
+        cache.enableAdmissionFilter(100);
+        for (int round = 0; round < 5; round++) {
+            for (int i = 0; i < 50; i++) {
+                int key = i;
+                cache.get(key, () -> key);
+            }
+        }
+        // Разовый проход по ключам, как у аналитического клиента
+        for (int i = 1000; i < 1500; i++) {
+            int key = i;
+            cache.get(key, () -> key);
+        }
+
+        for (int i = 0; i < 50; i++) {
+            assertEquals(i, cache.get(i));
+        }
+        assertTrue(cache.size() <= 100);
+    }
+
+    @Test
+    void testHeavyEntryIsNotAdmittedOverHotEntriesItWouldEvict() {
+        MyCache<Integer, String> cache = new MyCache<>("test", 10, 60_000,
+                (key, value) -> value.length(), null);
+        cache.enableAdmissionFilter(100);
+        cache.put(1, "cold!");
+        cache.put(2, "hot!!");
+        for (int i = 0; i < 10; i++) {
+            cache.get(2);
+        }
+        // Кандидат популярнее первой жертвы CLOCK, но не второй
+        for (int i = 0; i < 3; i++) {
+            cache.get(3);
+        }
+
+        cache.put(3, "heavy-one!");
+
+        assertNull(cache.get(3));
+        assertEquals("cold!", cache.get(1));
+        assertEquals("hot!!", cache.get(2));
+    }
+
+    @Test
+    void testRemoveAndClear() {
+        MyCache<Integer, Integer> cache = new MyCache<>("test", 100, 60_000);
+        for (int i = 0; i < 50; i++) {
+            cache.put(i, i);
+        }
+
+        cache.remove(7);
+        assertNull(cache.get(7));
+        assertEquals(49, cache.size());
+
+        cache.clear();
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void testConcurrentAccessKeepsBound() throws InterruptedException {
+        MyCache<Integer, Integer> cache = new MyCache<>("test", 256, 60_000);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        for (int t = 0; t < 8; t++) {
+            int seed = t;
+            pool.submit(() -> {
+                for (int i = 0; i < 20_000; i++) {
+                    int key = (i * 31 + seed) % 2048;
+                    if (cache.get(key) == null) {
+                        cache.put(key, key);
+                    }
+                }
+            });
+        }
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(30, TimeUnit.SECONDS));
+
+        assertTrue(cache.size() <= 256);
+    }
+
+    @Test
+    void testConcurrentMissesShareOneLoad() throws Exception {
+        MyCache<String, String> cache = new MyCache<>("test", 10, 60_000);
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            results.add(pool.submit(() -> cache.get("key", () -> {
+                loads.incrementAndGet();
+                awaitQuietly(release);
+                return "value";
+            })));
+        }
+        // Отпускаем загрузчик, когда остальные три потока уже ждут его
+        while (cache.getDeduplicatedLoads() < 3) {
+            Thread.onSpinWait();
+        }
+        release.countDown();
+
+        for (Future<String> result : results) {
+            assertEquals("value", result.get(10, TimeUnit.SECONDS));
+        }
+        pool.shutdown();
+        assertEquals(1, loads.get());
+        assertEquals("value", cache.get("key"));
+    }
+
+    @Test
+    void testLoaderFailureReachesWaitersAndIsNotCached() throws Exception {
+        MyCache<String, String> cache = new MyCache<>("test", 10, 60_000);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            results.add(pool.submit(() -> cache.get("key", () -> {
+                awaitQuietly(release);
+                throw new IllegalStateException("db down");
+            })));
+        }
+        while (cache.getDeduplicatedLoads() < 1) {
+            Thread.onSpinWait();
+        }
+        release.countDown();
+
+        for (Future<String> result : results) {
+            ExecutionException e = assertThrows(ExecutionException.class,
+                    () -> result.get(10, TimeUnit.SECONDS));
+            assertInstanceOf(IllegalStateException.class, e.getCause());
+        }
+        pool.shutdown();
+        assertEquals("retry", cache.get("key", () -> "retry"));
+    }
+
+    @Test
+    void testReadNearExpiryServesOldValueAndRefreshes() {
+        MyCache<String, String> cache = new MyCache<>("test", 10, 60_000);
+        // Выполняем перезагрузку в вызывающем потоке, чтобы проверка была детерминированной
+        cache.setRefreshAhead(30_000, Runnable::run);
+        cache.put("a", "old", 10_000);
+
+        assertEquals("old", cache.get("a", () -> "new"));
+        assertEquals("new", cache.get("a"));
+        assertEquals(1, cache.getStats().refreshes());
+    }
+
+    @Test
+    void testStaleValueIsServedWhenLoaderFails() {
+        MyCache<String, String> cache = new MyCache<>("test", 10, 60_000);
+        cache.setStaleIfError(60_000);
+        cache.put("a", "old", -1);
+
+        assertNull(cache.get("a"));
+        assertEquals("old", cache.get("a", () -> {
+            throw new IllegalStateException("db down");
+        }));
+        assertEquals("new", cache.get("a", () -> "new"));
+        assertEquals(1, cache.getStats().staleHits());
+    }
+
+    @Test
+    void testEvictedEntryIsPromotedFromOffHeapTier() {
+        MyCache<String, String> cache = new MyCache<>("test", 2, 60_000);
+        cache.enableOffHeapTier(64 * 1024, new StringCodec());
+        cache.put("a", "1");
+        cache.put("b", "2");
+        cache.put("c", "3");
+
+        // Каждое чтение из уровня вне кучи вытесняет туда другую запись
+        assertEquals("1", cache.get("a"));
+        assertEquals("2", cache.get("b"));
+        assertEquals("3", cache.get("c", () -> "loaded"));
+        assertEquals(2, cache.size());
+
+        CacheStatsSnapshot stats = cache.getStats();
+        assertEquals(0, stats.misses());
+        CacheTierStats offHeap = stats.tiers().get(1);
+        assertEquals("off-heap", offHeap.tier());
+        assertEquals(1, offHeap.entries());
+        assertTrue(offHeap.hits() >= 1);
+        assertEquals(stats.hits(), stats.tiers().get(0).hits() + offHeap.hits());
+    }
+
+    @Test
+    void testInvalidationReachesOffHeapTier() {
+        MyCache<String, String> cache = new MyCache<>("test", 1, 60_000);
+        cache.enableOffHeapTier(64 * 1024, new StringCodec());
+        cache.put("a", "1", Set.of("player:1"));
+        cache.put("b", "2", Set.of("player:2"));
+        cache.put("c", "3");
+
+        cache.invalidateTag("player:1");
+        cache.remove("b");
+
+        assertNull(cache.get("a"));
+        assertNull(cache.get("b"));
+        assertEquals("3", cache.get("c"));
+        cache.clear();
+        assertNull(cache.get("c"));
+    }
+
+    @Test
+    void testSnapshotRestoresHottestEntriesWithTags(@TempDir Path directory) throws IOException {
+        Path file = directory.resolve("test.snapshot");
+        MyCache<String, String> cache = new MyCache<>("test", 10, 60_000);
+        cache.enableAdmissionFilter(10);
+        cache.put("hot", "1", Set.of("player:1"));
+        cache.put("cold", "2");
+        for (int i = 0; i < 5; i++) {
+            cache.get("hot");
+        }
+
+        assertEquals(1, cache.saveSnapshot(file, 1, ValueCodec.strings(), new StringCodec()));
+        assertTrue(Files.exists(file));
+
+        MyCache<String, String> restored = new MyCache<>("test", 10, 60_000);
+        assertEquals(1, restored.loadSnapshot(file, ValueCodec.strings(), new StringCodec()));
+        assertEquals("1", restored.get("hot"));
+        assertNull(restored.get("cold"));
+        restored.invalidateTag("player:1");
+        assertNull(restored.get("hot"));
+    }
+
+    @Test
+    void testRestoredEntryIsRevalidatedOnFirstRead(@TempDir Path directory) throws IOException {
+        Path file = directory.resolve("test.snapshot");
+        MyCache<String, String> cache = new MyCache<>("test", 10, 60_000);
+        cache.put("a", "old");
+        cache.saveSnapshot(file, 10, ValueCodec.strings(), new StringCodec());
+
+        MyCache<String, String> restored = new MyCache<>("test", 10, 60_000);
+        restored.setRefreshAhead(10_000, Runnable::run);
+        restored.loadSnapshot(file, ValueCodec.strings(), new StringCodec());
+
+        // Снимок отдаётся сразу, а синхронный executor тут же заменяет его значением из БД
+        assertEquals("old", restored.get("a", () -> "new"));
+        assertEquals("new", restored.get("a"));
+    }
+
+    @Test
+    void testGetAllLoadsMissingKeysInOneBatch() {
+        MyCache<Integer, String> cache = new MyCache<>("test", 10, 60_000);
+        cache.put(2, "cached");
+        List<Set<Integer>> batches = new ArrayList<>();
+
+        Map<Integer, String> result = cache.getAll(List.of(3, 2, 1, 3, 4), keys -> {
+            batches.add(Set.copyOf(keys));
+            return Map.of(1, "one", 3, "three");
+        }, value -> Set.of("tag:" + value));
+
+        assertEquals(List.of(3, 2, 1), List.copyOf(result.keySet()));
+        assertEquals(List.of(Set.of(1, 3, 4)), batches);
+        assertEquals("one", cache.get(1));
+        assertNull(cache.get(4));
+        cache.invalidateTag("tag:three");
+        assertNull(cache.get(3));
+
+        CacheStatsSnapshot stats = cache.getStats();
+        assertEquals(1, stats.loadSuccesses());
+    }
+
+    @Test
+    void testInvalidateTagRemovesOnlyDependentEntries() {
+        MyCache<String, String> cache = new MyCache<>("test", 10, 60_000);
+        cache.put("a", "1", Set.of("player:1", "tournament:7"));
+        cache.put("b", "2", Set.of("player:2"));
+        cache.put("c", "3");
+
+        cache.invalidateTag("tournament:7");
+
+        assertNull(cache.get("a"));
+        assertEquals("2", cache.get("b"));
+        assertEquals("3", cache.get("c"));
+    }
+
+    @Test
+    void testReplacedEntryKeepsSharedTag() {
+        MyCache<String, String> cache = new MyCache<>("test", 10, 60_000);
+        cache.put("a", "old", Set.of("player:1"));
+        cache.put("a", "new", Set.of("player:1"));
+
+        cache.invalidateTag("player:1");
+
+        assertNull(cache.get("a"));
+    }
+
+    @Test
+    void testLoaderTagsAreIndexed() {
+        MyCache<Long, String> cache = new MyCache<>("test", 10, 60_000);
+        cache.get(100L, () -> "players", value -> Set.of("player:1"));
+        cache.get(200L, () -> "other", value -> Set.of("player:2"));
+
+        cache.invalidateTags(Set.of("player:1"));
+
+        assertNull(cache.get(100L));
+        assertEquals("other", cache.get(200L));
+    }
+
+    @Test
+    void testLoadSurvivesInvalidationOfUnrelatedKeysAndTags() {
+        MyCache<Long, String> cache = new MyCache<>("test", 10, 60_000);
+        cache.put(200L, "other", Set.of("player:2"));
+
+        String loaded = cache.get(100L, () -> {
+            // Во время загрузки меняются чужие ключ и тег
+            cache.invalidateTag("player:2");
+            cache.remove(300L);
+            return "players";
+        }, value -> Set.of("player:1"));
+
+        assertEquals("players", loaded);
+        assertEquals("players", cache.get(100L));
+        assertNull(cache.get(200L));
+    }
+
+    @Test
+    void testLoadIsDroppedWhenItsKeyOrTagIsInvalidated() {
+        MyCache<Long, String> cache = new MyCache<>("test", 10, 60_000);
+
+        cache.get(100L, () -> {
+            cache.invalidateTag("player:1");
+            return "stale";
+        }, value -> Set.of("player:1"));
+        cache.get(200L, () -> {
+            cache.remove(200L);
+            return "stale";
+        }, value -> Set.of());
+
+        assertNull(cache.get(100L));
+        assertNull(cache.get(200L));
+    }
+
+    @Test
+    void testClearDuringStoreDropsUntaggedEntry() {
+        AtomicInteger weighs = new AtomicInteger();
+        AtomicReference<MyCache<String, String>> holder = new AtomicReference<>();
+        // Weigher вызывается между проверкой эпохи и вставкой в сегмент
+        holder.set(new MyCache<>("test", 10, 60_000, (key, value) -> {
+            if (weighs.getAndIncrement() == 0) {
+                holder.get().clear();
+            }
+            return 1;
+        }, null));
+        MyCache<String, String> cache = holder.get();
+
+        assertEquals("old", cache.get("a", () -> "old"));
+
+        assertNull(cache.get("a"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void testInvalidateIfRemovesMatchingKeys() {
+        MyCache<Long, String> cache = new MyCache<>("test", 10, 60_000);
+        cache.put(50L, "a");
+        cache.put(100L, "b");
+        cache.put(150L, "c");
+
+        cache.invalidateIf(threshold -> threshold <= 100);
+
+        assertNull(cache.get(50L));
+        assertNull(cache.get(100L));
+        assertEquals("c", cache.get(150L));
+    }
+
+    @Test
+    void testExpiryServiceRemovesEntriesWithoutReads() throws InterruptedException {
+        CacheExpiryService expiryService = new CacheExpiryService(10);
+        try {
+            MyCache<String, String> cache = new MyCache<>("test", 10, 60_000, expiryService);
+            cache.put("short", "1", 50);
+            cache.put("long", "2");
+
+            long deadline = System.currentTimeMillis() + 5_000;
+            while (cache.size() > 1 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+
+            assertEquals(1, cache.size());
+            assertEquals(1, cache.getExpiredEntries());
+            assertEquals(1, expiryService.getExpiredCount());
+            assertEquals("2", cache.get("long"));
+        } finally {
+            expiryService.shutdown();
+        }
+    }
+
+    @Test
+    void testStatsCountHitsMissesLoadsAndRemovals() {
+        MyCache<Integer, String> cache = new MyCache<>("stats", 2, 60_000);
+        cache.get(1, () -> "a");
+        cache.get(1, () -> "unused");
+        assertThrows(IllegalStateException.class, () -> cache.get(2, () -> {
+            throw new IllegalStateException("db down");
+        }));
+        cache.put(2, "b");
+        // Ключ 1 прочитан, поэтому по размеру вытесняется ключ 2
+        cache.put(3, "c");
+        cache.remove(3);
+
+        CacheStatsSnapshot stats = cache.getStats();
+        assertEquals("stats", stats.cacheName());
+        assertEquals(1, stats.hits());
+        assertEquals(2, stats.misses());
+        assertEquals(1, stats.loadSuccesses());
+        assertEquals(1, stats.loadFailures());
+        assertEquals(1, stats.removals().get(RemovalCause.SIZE));
+        assertEquals(1, stats.removals().get(RemovalCause.EXPLICIT));
+        assertEquals(1, stats.size());
+    }
+
+    @Test
+    void testAdaptiveTtlFollowsReadAndInvalidationRates() {
+        MyCache<String, String> cache = new MyCache<>("adaptive", 100, 60_000);
+        cache.enableAdaptiveTtl(20_000, 240_000, 100);
+        for (int i = 0; i < 15; i++) {
+            cache.get("hot");
+        }
+        cache.put("hot", "v");
+        for (int i = 0; i < 4; i++) {
+            cache.remove("churn");
+        }
+        cache.put("churn", "v");
+        cache.put("cold", "v");
+
+        // Горячий ключ упирается в максимум, часто удаляемый — в минимум, холодный — база
+        assertEquals(Map.of("<256s", 1L, "<32s", 1L, "<64s", 1L),
+                cache.getStats().ttlHistogram());
+    }
+
+    @Test
+    void testRemovalListenerReceivesCause() throws InterruptedException {
+        MyCache<String, String> cache = new MyCache<>("test", 10, 60_000);
+        ConcurrentLinkedQueue<RemovalCause> causes = new ConcurrentLinkedQueue<>();
+        cache.addRemovalListener((key, value, cause) -> causes.add(cause));
+
+        cache.put("a", "1");
+        cache.put("a", "2");
+        cache.put("b", "3", Set.of("player:1"));
+        cache.invalidateTag("player:1");
+
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (causes.size() < 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertTrue(causes.contains(RemovalCause.REPLACED));
+        assertTrue(causes.contains(RemovalCause.INVALIDATED));
+    }
+
+    @Test
+    void testEntryMovedOffHeapIsNotReportedAsRemoved() throws InterruptedException {
+        MyCache<String, String> cache = new MyCache<>("test", 1, 60_000);
+        cache.enableOffHeapTier(64 * 1024, new StringCodec());
+        ConcurrentLinkedQueue<RemovalCause> causes = new ConcurrentLinkedQueue<>();
+        cache.addRemovalListener((key, value, cause) -> causes.add(cause));
+
+        // Одна из записей вытесняется или не проходит допуск и уходит вне кучи
+        cache.put("a", "1");
+        cache.put("b", "2");
+
+        assertEquals("1", cache.get("a"));
+        assertEquals("2", cache.get("b"));
+        Thread.sleep(100);
+        assertTrue(causes.isEmpty());
+    }
+
+    private static final class StringCodec implements ValueCodec<String> {
+        @Override
+        public void encode(String value, DataOutput out) throws IOException {
+            out.writeUTF(value);
+        }
+
+        @Override
+        public String decode(DataInput in) throws IOException {
+            return in.readUTF();
+        }
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
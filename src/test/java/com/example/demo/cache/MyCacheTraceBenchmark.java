@@ -0,0 +1,97 @@
+package com.example.demo.cache;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Function;
+
+/**
+ * Сравнение доли попаданий LRU, {@link MyCache} (CLOCK) и {@link MyCache} с фильтром допуска
+ * TinyLFU на записанной трассе ключей. Трасса — текстовый файл, по ключу на строку
+ * (например, пороги {@code /players/bets?bets=N} или имена игроков из логов доступа).
+ * Без файла используется синтетическая трасса: горячие ключи вперемешку с разовыми проходами.
+ * Запуск: {@code java -cp target/classes:target/test-classes:$(mvn -q dependency:build-classpath
+ * -Dmdep.outputFile=/dev/stdout)
+ * com.example.demo.cache.MyCacheTraceBenchmark [размер кеша] [файл трассы]}.
+ */
+public final class MyCacheTraceBenchmark {
+    private static final int HOT_KEYS = 500;
+    private static final int SYNTHETIC_LENGTH = 1_000_000;
+
+    private MyCacheTraceBenchmark() {
+    }
+
+    interface Policy {
+        boolean access(String key);
+    }
+
+    public static void main(String[] args) throws IOException {
+        int maxSize = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        List<String> trace = args.length > 1
+                ? Files.readAllLines(Path.of(args[1]))
+                : syntheticTrace();
+
+        System.out.printf("%d accesses, cache size %d%n", trace.size(), maxSize);
+        report("LRU", trace, lru(maxSize));
+        report("MyCache", trace, myCache(maxSize, false));
+        report("MyCache+TinyLFU", trace, myCache(maxSize, true));
+    }
+
+    private static void report(String name, List<String> trace, Policy policy) {
+        long hits = 0;
+        for (String key : trace) {
+            if (policy.access(key)) {
+                hits++;
+            }
+        }
+        System.out.printf("%-16s hit rate %6.2f%%%n", name, 100.0 * hits / trace.size());
+    }
+
+    // Пуассоноподобный перекос по горячим ключам и периодические проходы по новым ключам
+    private static List<String> syntheticTrace() {
+        Random random = new Random(42);
+        List<String> trace = new ArrayList<>(SYNTHETIC_LENGTH);
+        int scanKey = 0;
+        while (trace.size() < SYNTHETIC_LENGTH) {
+            for (int i = 0; i < 5_000; i++) {
+                int rank = (int) Math.min(HOT_KEYS * 4L - 1,
+                        (long) (-Math.log(1 - random.nextDouble()) * HOT_KEYS / 2));
+                trace.add("hot-" + rank);
+            }
+            for (int i = 0; i < 2_000; i++) {
+                trace.add("scan-" + scanKey++);
+            }
+        }
+        return trace;
+    }
+
+    private static Policy lru(int maxSize) {
+        Map<String, Boolean> map = new LinkedHashMap<>(maxSize, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                return size() > maxSize;
+            }
+        };
+        return key -> map.put(key, Boolean.TRUE) != null;
+    }
+
+    private static Policy myCache(int maxSize, boolean admission) {
+        MyCache<String, String> cache = new MyCache<>("trace", maxSize, 600_000);
+        if (admission) {
+            cache.enableAdmissionFilter(maxSize);
+        }
+        Function<String, Boolean> access = key -> {
+            if (cache.get(key) != null) {
+                return true;
+            }
+            cache.put(key, key);
+            return false;
+        };
+        return access::apply;
+    }
+}
@@ -0,0 +1,159 @@
+package com.example.demo.repository;
+
+import com.example.demo.entity.Bet;
+import com.example.demo.entity.Player;
+import com.example.demo.entity.Tournament;
+import com.example.demo.service.BetService;
+import com.example.demo.service.PlayerCacheService;
+import com.example.demo.service.PlayerService;
+import com.example.demo.service.TournamentCacheService;
+import com.example.demo.service.TournamentService;
+import jakarta.persistence.EntityManagerFactory;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import org.hibernate.Hibernate;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+// Число SQL-запросов страниц и чтений по ID не должно зависеть от числа строк,
+// а чтения через проекции не должны загружать сущности
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class FetchPlanTest {
+    private static final int PLAYERS = 20;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlayerRepository playerRepository;
+
+    @Autowired
+    private TournamentRepository tournamentRepository;
+
+    @Autowired
+    private BetRepository betRepository;
+
+    private final PlayerCacheService playerCacheService = mock(PlayerCacheService.class);
+    private final TournamentCacheService tournamentCacheService =
+            mock(TournamentCacheService.class);
+    private Statistics statistics;
+    private Long firstTournamentId;
+
+    @BeforeEach
+    void setUp() {
+        // Кеши по ID пусты: сервисы загружают всю страницу переданным загрузчиком
+        when(playerCacheService.getPlayersById(any(), any())).thenAnswer(invocation ->
+                invocation.<Function<Set<Long>, ?>>getArgument(1)
+                        .apply(Set.copyOf(invocation.getArgument(0))));
+        when(tournamentCacheService.getTournamentsById(any(), any())).thenAnswer(invocation ->
+                invocation.<Function<Set<Long>, ?>>getArgument(1)
+                        .apply(Set.copyOf(invocation.getArgument(0))));
+        when(tournamentCacheService.getTournamentById(any(), any())).thenAnswer(invocation ->
+                invocation.<Supplier<?>>getArgument(1).get());
+
+        Tournament first = entityManager.persist(tournament("Spring Open"));
+        Tournament second = entityManager.persist(tournament("Winter Cup"));
+        for (int i = 0; i < PLAYERS; i++) {
+            Player player = new Player();
+            player.setName("Player " + i);
+            player.setBalance(1000);
+            player.getTournaments().addAll(Set.of(first, second));
+            for (int amount = 100; amount <= 200; amount += 100) {
+                Bet bet = new Bet();
+                bet.setAmount(amount);
+                bet.setPlayer(player);
+                player.getBets().add(bet);
+            }
+            entityManager.persist(player);
+        }
+        entityManager.flush();
+        entityManager.clear();
+        firstTournamentId = first.getId();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void testPlayerPageRunsIdQueryAndThreeProjectionQueries() {
+        var page = playerService().getPlayersPage(null, 10);
+
+        assertEquals(10, page.getItems().size());
+        assertEquals(2, page.getItems().get(0).getBets().size());
+        assertEquals(2, page.getItems().get(0).getTournaments().size());
+        assertEquals(4, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    @Test
+    void testTournamentPageRunsIdQueryAndTwoProjectionQueries() {
+        var page = tournamentService().getTournamentsPage(null, 10);
+
+        assertEquals(2, page.getItems().size());
+        assertEquals(PLAYERS, page.getItems().get(0).getPlayers().size());
+        assertEquals(3, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    @Test
+    void testTournamentByIdRunsTwoProjectionQueries() {
+        var tournament = tournamentService().getTournamentById(firstTournamentId);
+
+        assertEquals("Spring Open", tournament.getName());
+        assertEquals(PLAYERS, tournament.getPlayers().size());
+        assertEquals(2, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    @Test
+    void testBetPageRunsOneQuery() {
+        BetService betService = new BetService(betRepository, playerRepository,
+                playerCacheService, tournamentCacheService);
+
+        assertEquals(10, betService.getBetsPage(null, 10).getItems().size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    // Выборка по порогу догружает связи пачками: по запросу на коллекцию, а не на игрока
+    @Test
+    void testThresholdSelectionBatchLoadsCollections() {
+        var players = playerRepository.findPlayersWithBetsGreaterThan(150);
+        players.forEach(player -> {
+            Hibernate.initialize(player.getBets());
+            Hibernate.initialize(player.getTournaments());
+        });
+
+        assertEquals(PLAYERS, players.size());
+        assertEquals(3, statistics.getPrepareStatementCount());
+    }
+
+    private PlayerService playerService() {
+        return new PlayerService(playerRepository, betRepository, tournamentRepository,
+                playerCacheService, tournamentCacheService, null, null, null);
+    }
+
+    private TournamentService tournamentService() {
+        return new TournamentService(tournamentRepository, playerRepository,
+                tournamentCacheService, playerCacheService, null, null);
+    }
+
+    private static Tournament tournament(String name) {
+        Tournament tournament = new Tournament();
+        tournament.setName(name);
+        tournament.setPrizePool(5000);
+        return tournament;
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.demo.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class BetExportServiceTest {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final BetExportService exportService = new BetExportService(jdbcTemplate,
+            mock(PlatformTransactionManager.class), new ObjectMapper());
+
+    @Test
+    void testExportWritesOneLinePerRowWithFetchSize() throws Exception {
+        PreparedStatement statement = mock(PreparedStatement.class);
+        Connection connection = mock(Connection.class);
+        when(connection.prepareStatement(anyString())).thenReturn(statement);
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getLong(1)).thenReturn(1L, 2L);
+        when(rs.getDouble(2)).thenReturn(10.5, 20.0);
+        when(rs.getLong(3)).thenReturn(7L, 8L);
+        doAnswer(invocation -> {
+            invocation.<PreparedStatementCreator>getArgument(0).createPreparedStatement(connection);
+            RowCallbackHandler handler = invocation.getArgument(1);
+            handler.processRow(rs);
+            handler.processRow(rs);
+            return null;
+        }).when(jdbcTemplate).query(any(PreparedStatementCreator.class),
+                any(RowCallbackHandler.class));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exportService.exportNdjson(out);
+
+        assertEquals("""
+                {"id":1,"amount":10.5,"playerId":7}
+                {"id":2,"amount":20.0,"playerId":8}
+                """, out.toString(StandardCharsets.UTF_8));
+        verify(statement).setFetchSize(BetExportService.FETCH_SIZE);
+    }
+
+    @Test
+    void testEmptyTableWritesNothing() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exportService.exportNdjson(out);
+
+        assertEquals(0, out.size());
+    }
+}
@@ -1,6 +1,7 @@
 package com.example.demo.service;
 
 import com.example.demo.dto.BetDto;
+import com.example.demo.dto.PageDto;
 import com.example.demo.entity.Bet;
 import com.example.demo.entity.Player;
 import com.example.demo.exception.InsufficientBalanceException;
@@ -16,6 +17,9 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.LongStream;
+import org.springframework.data.domain.Limit;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -33,21 +37,26 @@ class BetServiceTest {
     @Mock
     private PlayerCacheService playerCacheService;
 
+    @Mock
+    private TournamentCacheService tournamentCacheService;
+
     @InjectMocks
     private BetService betService;
 
     @Test
-    void getAllBets_ShouldReturnListOfBets() {
-        // Arrange
-        Bet bet = new Bet();
-        when(betRepository.findAll()).thenReturn(Collections.singletonList(bet));
-
-        // Act
-        List<BetDto> result = betService.getAllBets();
-
-        // Assert
-        assertFalse(result.isEmpty());
-        verify(betRepository, times(1)).findAll();
+    void getBetsPage_CursorContinuesAfterLastReturnedId() {
+        List<BetDto> rows = LongStream.of(3, 5, 9)
+                .mapToObj(id -> new BetDto(id, 10.0, 7L))
+                .toList();
+        when(betRepository.findDtoPageAfter(0L, Limit.of(3))).thenReturn(rows);
+        when(betRepository.findDtoPageAfter(5L, Limit.of(3))).thenReturn(rows.subList(2, 3));
+
+        PageDto<BetDto> first = betService.getBetsPage(null, 2);
+        PageDto<BetDto> second = betService.getBetsPage(first.getNextCursor(), 2);
+
+        assertEquals(List.of(3L, 5L), first.getItems().stream().map(BetDto::getId).toList());
+        assertEquals(List.of(9L), second.getItems().stream().map(BetDto::getId).toList());
+        assertNull(second.getNextCursor());
     }
 
     @Test
@@ -55,7 +64,8 @@ class BetServiceTest {
         // Arrange
         Long playerId = 1L;
         when(playerRepository.existsById(playerId)).thenReturn(true);
-        when(betRepository.findByPlayerId(playerId)).thenReturn(Collections.singletonList(new Bet()));
+        when(betRepository.findDtosByPlayerId(playerId))
+                .thenReturn(Collections.singletonList(new BetDto(1L, 100.0, playerId)));
 
         // Act
         List<BetDto> result = betService.getBetsByPlayerId(playerId);
@@ -96,7 +106,10 @@ class BetServiceTest {
         assertNotNull(result);
         assertEquals(100.0, player.getBalance()); // 200 - 100 = 100
         verify(playerRepository, times(1)).save(player);
-        verify(playerCacheService, times(1)).clear();
+        verify(playerCacheService, times(1)).invalidate(Set.of("player:1"));
+        verify(playerCacheService, times(1)).invalidateThresholdsUpTo(100.0);
+        verify(tournamentCacheService, times(1)).invalidate(Set.of("player:1"));
+        verify(playerCacheService, never()).clear();
     }
 
     @Test
@@ -153,7 +166,9 @@ class BetServiceTest {
         assertEquals(150.0, player.getBalance()); // 50 + 100 = 150
         verify(playerRepository, times(1)).save(player);
         verify(betRepository, times(1)).delete(bet);
-        verify(playerCacheService, times(1)).clear();
+        verify(playerCacheService, times(1)).invalidate(Set.of("player:" + playerId));
+        verify(tournamentCacheService, times(1)).invalidate(Set.of("player:" + playerId));
+        verify(playerCacheService, never()).clear();
     }
 
     @Test
@@ -0,0 +1,70 @@
+package com.example.demo.service;
+
+import com.example.demo.cache.JsonBody;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.mockito.Mockito.*;
+
+class CacheWarmUpTest {
+
+    private final JsonBody body = JsonBody.of(new byte[] {'[', ']'});
+    private VisitCounterService visitCounterService;
+    private PlayerService playerService;
+    private TournamentService tournamentService;
+    private MockEnvironment environment;
+    private CacheWarmUp cacheWarmUp;
+
+    @BeforeEach
+    void setUp() {
+        visitCounterService = mock(VisitCounterService.class);
+        playerService = mock(PlayerService.class);
+        tournamentService = mock(TournamentService.class);
+        environment = new MockEnvironment();
+        cacheWarmUp = new CacheWarmUp(visitCounterService, playerService, tournamentService,
+                environment);
+    }
+
+    @Test
+    void testWarmUpLoadsHottestKnownUrls() {
+        environment.setProperty("cache.warmup.top-n", "2");
+        when(visitCounterService.restoreHistory()).thenReturn(List.of(
+                "/tournaments/byPlayerName?name=John%20Doe",
+                "/players/unknown?x=1",
+                "/players/bets?bets=100"));
+        when(tournamentService.getTournamentsByPlayerNameJsonAsync("John Doe"))
+                .thenReturn(CompletableFuture.completedFuture(body));
+
+        cacheWarmUp.run(null);
+
+        verify(tournamentService).getTournamentsByPlayerNameJsonAsync("John Doe");
+        // Третий URL за пределами top-n
+        verifyNoInteractions(playerService);
+    }
+
+    @Test
+    void testFailedLoadDoesNotStopWarmUp() {
+        when(visitCounterService.restoreHistory()).thenReturn(List.of(
+                "/players/bets?bets=abc",
+                "/players/bets?bets=100"));
+        when(playerService.findPlayersWithBetsMoreThanJsonAsync(100L))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("db")));
+
+        cacheWarmUp.run(null);
+
+        verify(playerService).findPlayersWithBetsMoreThanJsonAsync(100L);
+    }
+
+    @Test
+    void testDisabledWarmUpSkipsHistory() {
+        environment.setProperty("cache.warmup.top-n", "0");
+
+        cacheWarmUp.run(null);
+
+        verifyNoInteractions(visitCounterService);
+    }
+}
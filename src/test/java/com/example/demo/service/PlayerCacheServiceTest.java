@@ -1,15 +1,32 @@
 package com.example.demo.service;
 
+import com.example.demo.cache.AsyncTaggedCache;
 import com.example.demo.cache.CacheFactory;
+import com.example.demo.cache.CacheSettings;
+import com.example.demo.cache.JsonBody;
 import com.example.demo.cache.MyCache;
+import com.example.demo.dto.BetDto;
+import com.example.demo.dto.PlayerDto;
+import com.example.demo.entity.Bet;
 import com.example.demo.entity.Player;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 import java.util.function.Supplier;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.*;
 
 class PlayerCacheServiceTest {
@@ -25,10 +42,17 @@ class PlayerCacheServiceTest {
         myCache = mock(MyCache.class);
 
         // 🟢 Принудительно кастуем возврат через Answer
-        when(cacheFactory.createCache(anyString(), anyInt(), anyLong()))
-                .thenAnswer(invocation -> myCache);
+        when(cacheFactory.createAsyncCache(anyString(), any()))
+                .thenAnswer(invocation -> new AsyncTaggedCache<>(myCache, Runnable::run));
+        when(cacheFactory.createCache(anyString(), any(CacheSettings.class)))
+                .thenAnswer(invocation -> new MyCache<>(invocation.getArgument(0), 100, 60_000));
+        // Кеш готовых ответов — настоящий, чтобы мок выше проверял только кеш сущностей
+        when(cacheFactory.createAsyncCache(eq("playerJsonCache"), any()))
+                .thenAnswer(invocation -> new AsyncTaggedCache<>(
+                        new MyCache<>(invocation.getArgument(0), 100, 60_000), Runnable::run));
 
-        playerCacheService = new PlayerCacheService(cacheFactory);
+        playerCacheService = new PlayerCacheService(cacheFactory,
+                mock(PlatformTransactionManager.class));
         playerCacheService.init();
     }
 
@@ -38,13 +62,162 @@ class PlayerCacheServiceTest {
         List<Player> mockPlayers = List.of(new Player());
 
         // 🔁 Мокаем возвращаемое значение из кеша
-        when(myCache.get(eq(id), any())).thenReturn(mockPlayers);
+        when(myCache.get(eq(id), any(), any())).thenReturn(mockPlayers);
 
         Supplier<List<Player>> loader = () -> List.of(new Player());
         List<Player> result = playerCacheService.getPlayer(id, loader);
 
         assertEquals(mockPlayers, result);
-        verify(myCache).get(eq(id), any());
+        verify(myCache).get(eq(id), any(), any());
+    }
+
+    @Test
+    void testGetPlayerAsync() {
+        Long id = 42L;
+        List<Player> mockPlayers = List.of(new Player());
+        when(myCache.get(eq(id), any(), any())).thenReturn(mockPlayers);
+
+        List<Player> result = playerCacheService.getPlayerAsync(id, List::of).join();
+
+        assertEquals(mockPlayers, result);
+        verify(myCache).get(eq(id), any(), any());
+    }
+
+    @Test
+    void testHigherThresholdIsFilteredFromCachedLowerOne() {
+        Player small = playerWithBets(1L, 100, 120);
+        Player big = playerWithBets(2L, 50, 200);
+        List<Player> players = List.of(small, big);
+        when(myCache.get(eq(100L), any(), any())).thenReturn(players);
+        when(myCache.get(100L)).thenReturn(players);
+
+        assertEquals(players, playerCacheService.getPlayer(100L, List::of));
+        List<Player> result = playerCacheService.getPlayer(150L, () -> {
+            throw new AssertionError("covered threshold must not hit the database");
+        });
+
+        assertEquals(List.of(big), result);
+        verify(myCache, never()).get(eq(150L), any(), any());
+    }
+
+    @Test
+    void testEvictedLowerThresholdFallsBackToLoad() {
+        List<Player> players = List.of(playerWithBets(1L, 300));
+        when(myCache.get(eq(100L), any(), any())).thenReturn(players);
+        when(myCache.get(eq(150L), any(), any())).thenReturn(players);
+
+        playerCacheService.getPlayer(100L, List::of);
+        // Запись для 100 уже вытеснена: get(100L) у мока возвращает null
+        assertEquals(players, playerCacheService.getPlayer(150L, List::of));
+
+        verify(myCache).get(eq(150L), any(), any());
+    }
+
+    @Test
+    void testGetPlayersByIdLoadsOnlyMissingIds() {
+        List<Set<Long>> requested = new ArrayList<>();
+        playerCacheService.getPlayersById(List.of(1L, 2L), ids -> {
+            requested.add(Set.copyOf(ids));
+            return Map.of(1L, playerDto(1L), 2L, playerDto(2L));
+        });
+
+        Map<Long, PlayerDto> result = playerCacheService.getPlayersById(List.of(2L, 3L), ids -> {
+            requested.add(Set.copyOf(ids));
+            return Map.of(3L, playerDto(3L));
+        });
+
+        assertEquals(List.of(2L, 3L), List.copyOf(result.keySet()));
+        assertEquals(List.of(Set.of(1L, 2L), Set.of(3L)), requested);
+    }
+
+    @Test
+    void testInvalidatedPlayerDtoIsReloaded() {
+        playerCacheService.getPlayersById(List.of(1L), ids -> Map.of(1L, playerDto(1L)));
+        playerCacheService.invalidate(Set.of("player:1"));
+
+        List<Set<Long>> requested = new ArrayList<>();
+        playerCacheService.getPlayersById(List.of(1L), ids -> {
+            requested.add(Set.copyOf(ids));
+            return Map.of(1L, playerDto(1L));
+        });
+
+        assertEquals(List.of(Set.of(1L)), requested);
+    }
+
+    @Test
+    void testLoadDuringUncommittedWriteIsDroppedAfterCommit() {
+        playerCacheService.getPlayerById(1L, () -> playerDto(1L));
+        PlayerDto stale;
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            // Транзакция записи инвалидирует игрока, но ещё не закоммичена
+            playerCacheService.invalidate(Set.of("player:1"));
+            // Читатель промахивается и загружает строку, которую транзакция ещё не изменила
+            stale = playerCacheService.getPlayerById(1L, () -> playerDto(1L));
+            PlayerDto cached = playerCacheService.getPlayerById(1L,
+                    () -> new PlayerDto(1L, "reloaded", 50, List.of(), List.of()));
+            assertEquals(stale.getName(), cached.getName());
+
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        PlayerDto committed = new PlayerDto(1L, "renamed", 50, List.of(), List.of());
+        assertEquals("renamed",
+                playerCacheService.getPlayerById(1L, () -> committed).getName());
+    }
+
+    @Test
+    void testPutPlayerIsServedWithoutLoader() {
+        playerCacheService.getPlayerById(1L, () -> playerDto(1L));
+        PlayerDto updated = new PlayerDto(1L, "renamed", 50, List.of(), List.of());
+
+        // Вне транзакции запись применяется сразу
+        playerCacheService.putPlayer(updated);
+
+        assertEquals("renamed", playerCacheService.getPlayerById(1L, () -> {
+            throw new AssertionError("written-through entry must not be reloaded");
+        }).getName());
+    }
+
+    @Test
+    void testCachedPlayerDtoIsNotChangedThroughReturnedOrPutInstances() {
+        PlayerDto loaded = playerCacheService.getPlayerById(1L, () -> playerDto(1L));
+        loaded.setName("changed by caller");
+        PlayerDto updated = new PlayerDto(2L, "player2", 50, new ArrayList<>(), List.of());
+        playerCacheService.putPlayer(updated);
+        updated.setBalance(0);
+        updated.getBets().add(new BetDto(5L, 10.0, 2L));
+
+        Map<Long, PlayerDto> cached = playerCacheService.getPlayersById(List.of(1L, 2L), ids -> {
+            throw new AssertionError("cached players must not be reloaded");
+        });
+
+        assertEquals("player1", cached.get(1L).getName());
+        assertEquals(50, cached.get(2L).getBalance());
+        assertTrue(cached.get(2L).getBets().isEmpty());
+    }
+
+    @Test
+    void testJsonBodyIsRenderedOnceAndDroppedOnInvalidation() {
+        List<Player> players = List.of(playerWithBets(1L, 200));
+        when(myCache.get(eq(100L), any(), any())).thenReturn(players);
+        AtomicInteger renders = new AtomicInteger();
+        Function<List<Player>, JsonBody> renderer = loaded -> {
+            renders.incrementAndGet();
+            return JsonBody.of("[{\"id\":1}]".getBytes(StandardCharsets.UTF_8));
+        };
+
+        JsonBody first = playerCacheService.getPlayerJsonAsync(100L, List::of, renderer).join();
+        JsonBody second = playerCacheService.getPlayerJsonAsync(100L, List::of, renderer).join();
+        assertSame(first, second);
+        assertEquals(1, renders.get());
+
+        playerCacheService.invalidate(Set.of("player:1"));
+        playerCacheService.getPlayerJsonAsync(100L, List::of, renderer).join();
+        assertEquals(2, renders.get());
     }
 
     @Test
@@ -52,4 +225,20 @@ class PlayerCacheServiceTest {
         playerCacheService.clear();
         verify(myCache).clear();
     }
+
+    private static PlayerDto playerDto(Long id) {
+        return new PlayerDto(id, "player" + id, 100, List.of(), List.of());
+    }
+
+    private static Player playerWithBets(Long id, double... amounts) {
+        Player player = new Player();
+        player.setId(id);
+        for (double amount : amounts) {
+            Bet bet = new Bet();
+            bet.setAmount(amount);
+            bet.setPlayer(player);
+            player.getBets().add(bet);
+        }
+        return player;
+    }
 }
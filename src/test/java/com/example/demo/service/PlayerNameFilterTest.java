@@ -0,0 +1,71 @@
+package com.example.demo.service;
+
+import com.example.demo.repository.PlayerRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class PlayerNameFilterTest {
+
+    private PlayerRepository playerRepository;
+    private PlayerNameFilter playerNameFilter;
+
+    @BeforeEach
+    void setUp() {
+        playerRepository = mock(PlayerRepository.class);
+        // init() не вызываем: перестройки запускает сам тест
+        playerNameFilter = new PlayerNameFilter(playerRepository, new MockEnvironment());
+        when(playerRepository.findAllNames()).thenReturn(List.of("Existing"));
+        playerNameFilter.rebuild();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        playerNameFilter.shutdown();
+    }
+
+    @Test
+    void testNameAddedBeforeRebuildAndCommittedAfterSnapshotIsKept() {
+        TransactionSynchronizationManager.initSynchronization();
+        // Запись добавила имя, но ещё не закоммичена: выборка перестройки его не видит
+        playerNameFilter.add("John");
+        playerNameFilter.rebuild();
+        assertTrue(playerNameFilter.mightContain("John"));
+
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(TransactionSynchronization::afterCommit);
+        TransactionSynchronizationManager.clearSynchronization();
+
+        assertTrue(playerNameFilter.mightContain("John"));
+        assertTrue(playerNameFilter.mightContain("Existing"));
+    }
+
+    @Test
+    void testNameCommittedDuringRebuildIsKept() {
+        when(playerRepository.findAllNames()).thenAnswer(invocation -> {
+            // Коммит записи приходится на время выборки
+            playerNameFilter.add("Jane");
+            return List.of("Existing");
+        });
+
+        playerNameFilter.rebuild();
+
+        assertTrue(playerNameFilter.mightContain("Jane"));
+    }
+
+    @Test
+    void testUnknownNameIsRejected() {
+        assertFalse(playerNameFilter.mightContain("Nobody"));
+    }
+}
@@ -1,16 +1,32 @@
 package com.example.demo.service;
 
+import com.example.demo.dto.PageDto;
 import com.example.demo.dto.PlayerDto;
+import com.example.demo.dto.PlayerInfoDto;
 import com.example.demo.entity.Player;
 import com.example.demo.entity.Tournament;
+import com.example.demo.exception.BadRequestException;
 import com.example.demo.exception.ResourceNotFoundException;
+import com.example.demo.repository.BetRepository;
 import com.example.demo.repository.PlayerRepository;
 import com.example.demo.repository.TournamentRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.*;
+import java.io.IOException;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Properties;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.support.PropertiesLoaderUtils;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -23,12 +39,21 @@ class PlayerServiceTest {
     @Mock
     private TournamentRepository tournamentRepository;
 
+    @Mock
+    private BetRepository betRepository;
+
     @Mock
     private PlayerCacheService playerCacheService;
 
     @Mock
     private TournamentCacheService tournamentCacheService;
 
+    @Mock
+    private PlayerNameFilter playerNameFilter;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
     @InjectMocks
     private PlayerService playerService;
 
@@ -74,38 +99,73 @@ class PlayerServiceTest {
     }
 
     @Test
-    void testGetAllPlayers() {
-        // Мокаем список всех игроков
-        List<Player> players = List.of(player);
-        when(playerRepository.findAll()).thenReturn(players);
+    void testGetPlayerById_Found() {
+        // Мокаем поведение репозитория
+        stubPlayerByIdCacheMiss();
+        when(playerRepository.findInfoByIdIn(Set.of(1L))).thenReturn(List.of(playerInfo()));
 
         // Вызов метода
-        List<PlayerDto> result = playerService.getAllPlayers();
+        PlayerDto result = playerService.getPlayerById(1L);
 
         // Проверка результата
         assertNotNull(result);
+        assertEquals("Test Player", result.getName());
+        verify(playerRepository, never()).findById(any());
+    }
+
+    @Test
+    void testGetPlayersByIds_LoadsMissingWithProjections() {
+        when(playerCacheService.getPlayersById(eq(List.of(1L)), any())).thenAnswer(invocation ->
+                invocation.<Function<Set<Long>, Map<Long, PlayerDto>>>getArgument(1)
+                        .apply(Set.of(1L)));
+        when(playerRepository.findInfoByIdIn(Set.of(1L))).thenReturn(List.of(playerInfo()));
+
+        List<PlayerDto> result = playerService.getPlayersByIds(List.of(1L));
+
         assertEquals(1, result.size());
-        verify(playerRepository).findAll();
+        assertEquals("Test Player", result.get(0).getName());
+        verify(betRepository).findDtosByPlayerIdIn(Set.of(1L));
+        verify(playerRepository).findTournamentRowsByPlayerIdIn(Set.of(1L));
+        verify(playerRepository, never()).findById(any());
     }
 
     @Test
-    void testGetPlayerById_Found() {
-        // Мокаем поведение репозитория
-        when(playerRepository.findById(1L)).thenReturn(java.util.Optional.of(player));
+    void testGetPlayersPage_ReadsPageIdsThroughCache() {
+        PlayerDto first = new PlayerDto(1L, "First", 100, List.of(), List.of());
+        PlayerDto second = new PlayerDto(2L, "Second", 200, List.of(), List.of());
+        when(playerRepository.findIdsAfter(0L, Limit.of(3))).thenReturn(List.of(1L, 2L, 4L));
+        when(playerCacheService.getPlayersById(eq(List.of(1L, 2L)), any()))
+                .thenReturn(Map.of(1L, first, 2L, second));
+
+        PageDto<PlayerDto> page = playerService.getPlayersPage(null, 2);
+
+        assertEquals(2, page.getItems().size());
+        assertNotNull(page.getNextCursor());
+        playerService.getPlayersPage(page.getNextCursor(), 2);
+        verify(playerRepository).findIdsAfter(2L, Limit.of(3));
+    }
 
-        // Вызов метода
-        PlayerDto result = playerService.getPlayerById(1L);
+    @Test
+    void testGetPlayersPage_InvalidCursor() {
+        assertThrows(BadRequestException.class,
+                () -> playerService.getPlayersPage("not-a-cursor", 10));
+        assertThrows(BadRequestException.class, () -> playerService.getPlayersPage(null, 0));
+        verifyNoInteractions(playerRepository);
+    }
 
-        // Проверка результата
-        assertNotNull(result);
-        assertEquals("Test Player", result.getName());
-        verify(playerRepository).findById(1L);
+    @Test
+    void testGetPlayersByIds_TooManyIds() {
+        List<Long> ids = LongStream.rangeClosed(1, 101).boxed().toList();
+
+        assertThrows(BadRequestException.class, () -> playerService.getPlayersByIds(ids));
+        verifyNoInteractions(playerCacheService);
     }
 
     @Test
     void testGetPlayerById_NotFound() {
         // Мокаем отсутствие игрока
-        when(playerRepository.findById(1L)).thenReturn(java.util.Optional.empty());
+        stubPlayerByIdCacheMiss();
+        when(playerRepository.findInfoByIdIn(Set.of(1L))).thenReturn(List.of());
 
         // Вызов метода и проверка исключения
         ResourceNotFoundException exception = assertThrows(ResourceNotFoundException.class, () -> {
@@ -115,6 +175,25 @@ class PlayerServiceTest {
         assertEquals("Player not found with id: 1", exception.getMessage());
     }
 
+    @Test
+    void testGetPlayerById_CachedSkipsDatabase() {
+        PlayerDto cached = new PlayerDto(1L, "Cached Player", 500, List.of(), List.of());
+        when(playerCacheService.getPlayerById(eq(1L), any())).thenReturn(cached);
+
+        assertSame(cached, playerService.getPlayerById(1L));
+        verify(playerRepository, never()).findInfoByIdIn(any());
+    }
+
+    private PlayerInfoDto playerInfo() {
+        return new PlayerInfoDto(player.getId(), player.getName(), player.getBalance());
+    }
+
+    // Кеш по ID пуст: сервис кеша вызывает переданный загрузчик
+    private void stubPlayerByIdCacheMiss() {
+        when(playerCacheService.getPlayerById(eq(1L), any())).thenAnswer(invocation ->
+                invocation.<Supplier<PlayerDto>>getArgument(1).get());
+    }
+
     @Test
     void testCreatePlayersBulk() {
         // Мокаем сохранение игроков
@@ -137,7 +216,39 @@ class PlayerServiceTest {
         assertEquals(1, result.size());
         assertEquals("Test Player", result.get(0).getName());
         verify(playerRepository).saveAll(anyList());
-        verify(tournamentCacheService).clear();
+        verify(transactionManager).commit(any());
+        verify(tournamentCacheService, never()).clear();
+    }
+
+    @Test
+    void testCreatePlayersBulk_CommitsEachChunkSeparately() {
+        int total = 2 * PlayerService.BULK_CHUNK_SIZE + 1;
+        List<PlayerDto> playerDtos = IntStream.range(0, total)
+                .mapToObj(i -> new PlayerDto(null, "Player " + i, 100, List.of(), List.of()))
+                .toList();
+        when(playerRepository.saveAll(anyList())).thenAnswer(invocation ->
+                invocation.getArgument(0));
+
+        List<PlayerDto> result = playerService.createPlayersBulk(playerDtos);
+
+        assertEquals(total, result.size());
+        assertEquals("Player " + (total - 1), result.get(total - 1).getName());
+        verify(playerRepository, times(3)).saveAll(anyList());
+        verify(transactionManager, times(3)).commit(any());
+        verify(playerNameFilter, times(total)).add(anyString());
+    }
+
+    // Неполный пакет в конце каждой порции и лишний nextval на пакет сводят батчинг на нет
+    @Test
+    void testBulkChunkIsMultipleOfJdbcBatchAndIdAllocation() throws IOException {
+        Properties properties = PropertiesLoaderUtils.loadProperties(
+                new ClassPathResource("application.properties"));
+        int batchSize = Integer.parseInt(
+                properties.getProperty("spring.jpa.properties.hibernate.jdbc.batch_size"));
+
+        assertEquals(0, PlayerService.BULK_CHUNK_SIZE % batchSize);
+        assertEquals(0, PlayerService.BULK_CHUNK_SIZE % Player.ID_ALLOCATION_SIZE);
+        assertEquals(0, Player.ID_ALLOCATION_SIZE % batchSize);
     }
 
     @Test
@@ -187,15 +298,6 @@ class PlayerServiceTest {
         });
     }
 
-    @Test
-    void testGetAllPlayers_EmptyList() {
-        when(playerRepository.findAll()).thenReturn(List.of());
-
-        List<PlayerDto> result = playerService.getAllPlayers();
-
-        assertTrue(result.isEmpty());
-    }
-
     @Test
     void testCreatePlayer() {
         // Мокаем сохранение игрока
@@ -216,7 +318,7 @@ class PlayerServiceTest {
         assertNotNull(result);
         assertEquals("Test Player", result.getName());
         verify(playerRepository).save(any());
-        verify(playerCacheService).clear();
+        verify(playerCacheService, never()).clear();
     }
 
     @Test
@@ -237,8 +339,12 @@ class PlayerServiceTest {
         assertEquals("Updated Player", result.getName());
         verify(playerRepository).findById(1L);
         verify(playerRepository).save(any());
-        verify(playerCacheService).clear();
-        verify(tournamentCacheService).clear();
+        Set<String> tags = Set.of("player:1", "player-name:Test Player",
+                "player-name:Updated Player");
+        verify(playerCacheService).invalidate(tags);
+        verify(tournamentCacheService).invalidate(tags);
+        verify(playerCacheService).putPlayer(result);
+        verify(playerCacheService, never()).clear();
     }
 
     @Test
@@ -271,7 +377,8 @@ class PlayerServiceTest {
         verify(playerRepository).findById(1L);
         verify(tournamentRepository).findTournamentsByName(player.getName());
         verify(playerRepository).delete(any());
-        verify(playerCacheService).clear();
-        verify(tournamentCacheService).clear();
+        Set<String> tags = Set.of("player:1", "player-name:Test Player");
+        verify(playerCacheService).invalidate(tags);
+        verify(tournamentCacheService).invalidate(tags);
     }
 }
@@ -1,10 +1,13 @@
 package com.example.demo.service;
 
+import com.example.demo.cache.AsyncTaggedCache;
 import com.example.demo.cache.CacheFactory;
+import com.example.demo.cache.CacheSettings;
 import com.example.demo.cache.MyCache;
 import com.example.demo.entity.Tournament;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import java.util.List;
 import java.util.function.Supplier;
@@ -26,10 +29,17 @@ class TournamentCacheServiceTest {
         myCache = mock(MyCache.class);
 
         // 🟢 Принудительно кастуем возврат через Answer
-        when(cacheFactory.createCache(anyString(), anyInt(), anyLong()))
-                .thenAnswer(invocation -> myCache);
+        when(cacheFactory.createAsyncCache(anyString(), any()))
+                .thenAnswer(invocation -> new AsyncTaggedCache<>(myCache, Runnable::run));
+        when(cacheFactory.createCache(anyString(), any(CacheSettings.class)))
+                .thenAnswer(invocation -> new MyCache<>(invocation.getArgument(0), 100, 60_000));
+        // Кеш готовых ответов — настоящий, чтобы мок выше проверял только кеш сущностей
+        when(cacheFactory.createAsyncCache(eq("tournamentJsonCache"), any()))
+                .thenAnswer(invocation -> new AsyncTaggedCache<>(
+                        new MyCache<>(invocation.getArgument(0), 100, 60_000), Runnable::run));
 
-        tournamentCacheService = new TournamentCacheService(cacheFactory);
+        tournamentCacheService = new TournamentCacheService(cacheFactory,
+                mock(PlatformTransactionManager.class));
         tournamentCacheService.init();
     }
 
@@ -39,13 +49,13 @@ class TournamentCacheServiceTest {
         List<Tournament> mockTournaments = List.of(new Tournament());
 
         // 🔁 Мокаем возвращаемое значение из кеша
-        when(myCache.get(eq(playerId), any())).thenReturn(mockTournaments);
+        when(myCache.get(eq(playerId), any(), any())).thenReturn(mockTournaments);
 
         Supplier<List<Tournament>> loader = () -> List.of(new Tournament());
         List<Tournament> result = tournamentCacheService.getPlayerTournaments(playerId, loader);
 
         assertEquals(mockTournaments, result);
-        verify(myCache).get(eq(playerId), any());
+        verify(myCache).get(eq(playerId), any(), any());
     }
 
     @Test
@@ -1,6 +1,7 @@
 package com.example.demo.service;
 
 import com.example.demo.dto.TournamentDto;
+import com.example.demo.dto.TournamentInfoDto;
 import com.example.demo.entity.Player;
 import com.example.demo.entity.Tournament;
 import com.example.demo.exception.BadRequestException;
@@ -15,6 +16,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Supplier;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -30,6 +32,12 @@ class TournamentServiceTest {
     @Mock
     private TournamentCacheService tournamentCacheService;
 
+    @Mock
+    private PlayerCacheService playerCacheService;
+
+    @Mock
+    private PlayerNameFilter playerNameFilter;
+
     @InjectMocks
     private TournamentService tournamentService;
 
@@ -39,6 +47,7 @@ class TournamentServiceTest {
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
+        when(playerNameFilter.mightContain(anyString())).thenReturn(true);
 
         // Подготовка объектов для тестирования
         player = new Player();
@@ -67,6 +76,16 @@ class TournamentServiceTest {
         verify(tournamentCacheService).getPlayerTournaments(eq("Test Player"), any());
     }
 
+    @Test
+    void testGetTournamentsByPlayerName_UnknownNameSkipsCacheAndDatabase() {
+        when(playerNameFilter.mightContain("Ghost")).thenReturn(false);
+
+        assertThrows(ResourceNotFoundException.class,
+                () -> tournamentService.getTournamentsByPlayerName("Ghost"));
+
+        verifyNoInteractions(tournamentCacheService, tournamentRepository);
+    }
+
     @Test
     void testGetTournamentsByPlayerName_CacheFallbackException() {
         String playerName = "Error Player";
@@ -208,15 +227,6 @@ class TournamentServiceTest {
         verify(tournamentRepository).findTournamentsByName("Test Player"); // Проверяем вызов базы
     }
 
-    @Test
-    void testGetAllTournaments_EmptyList() {
-        when(tournamentRepository.findAll()).thenReturn(List.of());
-
-        List<TournamentDto> result = tournamentService.getAllTournaments();
-
-        assertTrue(result.isEmpty());
-    }
-
     @Test
     void testCreateTournament_NullName() {
         TournamentDto tournamentDto = new TournamentDto();
@@ -306,7 +316,8 @@ class TournamentServiceTest {
         tournamentService.registerPlayer(1L, 2L);
 
         // Проверяем, что кэш был очищен после регистрации
-        verify(tournamentCacheService).clear();
+        verify(tournamentCacheService).invalidate(Set.of("tournament:1", "player-name:New Player"));
+        verify(playerCacheService).invalidate(Set.of("player:2"));
     }
 
     @Test
@@ -322,7 +333,8 @@ class TournamentServiceTest {
 
         // Проверяем, что у игрока удалилась связь с турниром
         assertFalse(player.getTournaments().contains(tournamentWithPlayers));
-        verify(tournamentCacheService).clear();
+        verify(tournamentCacheService).invalidate(Set.of("tournament:1"));
+        verify(playerCacheService).invalidate(Set.of("tournament:1"));
     }
 
     @Test
@@ -374,7 +386,8 @@ class TournamentServiceTest {
 
         tournamentService.unregisterPlayer(1L, 1L);
 
-        verify(tournamentCacheService).clear();
+        verify(tournamentCacheService).invalidate(Set.of("tournament:1", "player-name:Test Player"));
+        verify(playerCacheService).invalidate(Set.of("player:1"));
     }
 
     @Test
@@ -416,24 +429,12 @@ class TournamentServiceTest {
         assertEquals("No tournaments found for player with name: Test Player", exception.getMessage());
     }
 
-    @Test
-    void testGetAllTournaments() {
-        // Мокаем список всех турниров
-        when(tournamentRepository.findAll()).thenReturn(List.of(tournament));
-
-        // Вызов метода
-        List<TournamentDto> result = tournamentService.getAllTournaments();
-
-        // Проверка результата
-        assertNotNull(result);
-        assertEquals(1, result.size());
-        verify(tournamentRepository).findAll();
-    }
-
     @Test
     void testGetTournamentById_Found() {
         // Мокаем существующий турнир
-        when(tournamentRepository.findById(1L)).thenReturn(java.util.Optional.of(tournament));
+        stubTournamentByIdCacheMiss();
+        when(tournamentRepository.findInfoByIdIn(Set.of(1L)))
+                .thenReturn(List.of(tournamentInfo()));
 
         // Вызов метода
         TournamentDto result = tournamentService.getTournamentById(1L);
@@ -441,13 +442,15 @@ class TournamentServiceTest {
         // Проверка результата
         assertNotNull(result);
         assertEquals("Test Tournament", result.getName());
-        verify(tournamentRepository).findById(1L);
+        verify(tournamentRepository).findPlayerRowsByTournamentIdIn(Set.of(1L));
+        verify(tournamentRepository, never()).findById(any());
     }
 
     @Test
     void testGetTournamentById_NotFound() {
         // Мокаем отсутствие турнира
-        when(tournamentRepository.findById(1L)).thenReturn(java.util.Optional.empty());
+        stubTournamentByIdCacheMiss();
+        when(tournamentRepository.findInfoByIdIn(Set.of(1L))).thenReturn(List.of());
 
         // Вызов метода и проверка исключения
         ResourceNotFoundException exception = assertThrows(ResourceNotFoundException.class, () -> {
@@ -457,6 +460,17 @@ class TournamentServiceTest {
         assertEquals("Tournament not found with id: 1", exception.getMessage());
     }
 
+    private TournamentInfoDto tournamentInfo() {
+        return new TournamentInfoDto(tournament.getId(), tournament.getName(),
+                tournament.getPrizePool());
+    }
+
+    // Кеш по ID пуст: сервис кеша вызывает переданный загрузчик
+    private void stubTournamentByIdCacheMiss() {
+        when(tournamentCacheService.getTournamentById(eq(1L), any())).thenAnswer(invocation ->
+                invocation.<Supplier<TournamentDto>>getArgument(1).get());
+    }
+
     @Test
     void testCreateTournament() {
         // Мокаем создание турнира
@@ -515,7 +529,8 @@ class TournamentServiceTest {
         assertEquals(15000L, result.getPrizePool());
         verify(tournamentRepository).findById(1L);
         verify(tournamentRepository).save(any());
-        verify(tournamentCacheService).clear();
+        verify(tournamentCacheService).invalidate(Set.of("tournament:1"));
+        verify(playerCacheService).invalidate(Set.of("tournament:1"));
     }
 
     @Test
@@ -546,7 +561,8 @@ class TournamentServiceTest {
         // Проверка вызовов
         verify(tournamentRepository).findById(1L);
         verify(tournamentRepository).delete(any());
-        verify(tournamentCacheService).clear();
+        verify(tournamentCacheService).invalidate(Set.of("tournament:1"));
+        verify(playerCacheService).invalidate(Set.of("tournament:1"));
     }
 
     @Test
@@ -565,7 +581,10 @@ class TournamentServiceTest {
         verify(playerRepository).findById(1L);
         verify(tournamentRepository).save(any());
         verify(playerRepository).save(any());
-        verify(tournamentCacheService).clear();
+        verify(tournamentCacheService).invalidate(Set.of("tournament:1", "player-name:Test Player"));
+        verify(playerCacheService).invalidate(Set.of("player:1"));
+        verify(tournamentCacheService).putTournament(result);
+        verify(playerCacheService).putPlayer(any());
     }
 
     @Test
@@ -598,7 +617,8 @@ class TournamentServiceTest {
         verify(playerRepository).findById(1L);
         verify(tournamentRepository).save(any());
         verify(playerRepository).save(any());
-        verify(tournamentCacheService).clear();
+        verify(tournamentCacheService).invalidate(Set.of("tournament:1", "player-name:Test Player"));
+        verify(playerCacheService).invalidate(Set.of("player:1"));
     }
 
     @Test
@@ -0,0 +1,65 @@
+package com.example.demo.service;
+
+import com.example.demo.entity.VisitCount;
+import com.example.demo.repository.VisitCountRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+class VisitCounterServiceTest {
+
+    private VisitCountRepository visitCountRepository;
+    private PlatformTransactionManager transactionManager;
+    private VisitCounterService visitCounterService;
+
+    @BeforeEach
+    void setUp() {
+        visitCountRepository = mock(VisitCountRepository.class);
+        transactionManager = mock(PlatformTransactionManager.class);
+        visitCounterService = new VisitCounterService(visitCountRepository,
+                new MockEnvironment(), transactionManager);
+    }
+
+    @Test
+    void testRestoredCountsDecayAndColdUrlsAreDropped() {
+        when(visitCountRepository.findAll()).thenReturn(List.of(
+                new VisitCount("/players/bets?bets=100", new AtomicLong(10)),
+                new VisitCount("/players/unknown?x=1", new AtomicLong(1)),
+                new VisitCount("/tournaments/byPlayerName?name=A", new AtomicLong(40))));
+
+        List<String> restored = visitCounterService.restoreHistory();
+
+        assertEquals(List.of("/tournaments/byPlayerName?name=A", "/players/bets?bets=100"),
+                restored);
+        visitCounterService.saveHistory();
+        verify(visitCountRepository).saveAll(argThat(saved -> {
+            List<VisitCount> visits = (List<VisitCount>) saved;
+            return visits.size() == 2
+                    && visits.get(0).getCount().get() == 20
+                    && visits.get(1).getCount().get() == 5;
+        }));
+    }
+
+    @Test
+    void testSaveHistoryReplacesRowsInOneTransaction() {
+        visitCounterService.incrementQueryCount("/players/bets?bets=100");
+
+        visitCounterService.saveHistory();
+
+        InOrder order = inOrder(transactionManager, visitCountRepository);
+        order.verify(transactionManager).getTransaction(any());
+        order.verify(visitCountRepository).deleteAllInBatch();
+        order.verify(visitCountRepository).saveAll(anyList());
+        order.verify(transactionManager).commit(any());
+    }
+}